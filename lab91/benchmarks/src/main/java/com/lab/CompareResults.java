@@ -0,0 +1,105 @@
+package com.lab;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compares two CSV results of BenchmarkMain, benchmark by benchmark and parameter
+// by parameter, on time (or throughput) and on bytes allocated per operation.
+// Exits with status 1 if anything got worse by more than the threshold and by
+// more than the two runs' error margins together, so a build can fail on it.
+//
+//   java -cp benchmarks.jar com.lab.CompareResults baseline.csv current.csv [percent]
+public class CompareResults {
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    record Result(String mode, double score, double error, String unit) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CompareResults baseline.csv current.csv [percent, default 10]");
+            System.exit(2);
+        }
+        Map<String, Result> baseline = read(Path.of(args[0]));
+        Map<String, Result> current = read(Path.of(args[1]));
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.10;
+
+        int regressions = 0;
+        System.out.printf("%-84s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-84s %14s %14.3f %9s%n", entry.getKey(), "-", entry.getValue().score(), "new");
+                continue;
+            }
+            Result after = entry.getValue();
+            double change = before.score() == 0 ? 0 : (after.score() - before.score()) / before.score();
+            // Throughput is better higher; time per op and bytes per op are better lower
+            double worse = after.mode().equals("thrpt") && !entry.getKey().contains(ALLOCATION) ? -change : change;
+            boolean significant = Math.abs(after.score() - before.score()) > before.error() + after.error();
+            boolean regressed = worse > threshold && significant;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-84s %14.3f %14.3f %+8.1f%% %s%s%n", entry.getKey(), before.score(), after.score(),
+                    change * 100, after.unit(), regressed ? "  REGRESSION" : "");
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " regression(s) over " + Math.round(threshold * 100) + "%");
+            System.exit(1);
+        }
+    }
+
+    // Keyed by benchmark, metric and parameters; gc.alloc.rate itself is dropped,
+    // as it only restates the score per second
+    static Map<String, Result> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        List<String> header = split(lines.get(0));
+        int mode = header.indexOf("Mode");
+        int score = header.indexOf("Score");
+        int error = header.indexOf("Score Error (99.9%)");
+        int unit = header.indexOf("Unit");
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            List<String> fields = split(line);
+            String name = fields.get(0);
+            int metric = name.indexOf(':');
+            if (metric != -1 && !name.endsWith(ALLOCATION)) {
+                continue;
+            }
+            StringBuilder key = new StringBuilder(name.substring(benchmarkStart(name)));
+            for (int i = unit + 1; i < fields.size(); i++) {
+                key.append(' ').append(header.get(i).replace("Param: ", "")).append('=').append(fields.get(i));
+            }
+            results.put(key.toString(), new Result(fields.get(mode), number(fields.get(score)),
+                    number(fields.get(error)), fields.get(unit)));
+        }
+        return results;
+    }
+
+    // Class.method, without the package
+    private static int benchmarkStart(String name) {
+        int metric = name.indexOf(':');
+        String benchmark = metric == -1 ? name : name.substring(0, metric);
+        int method = benchmark.lastIndexOf('.');
+        return benchmark.lastIndexOf('.', method - 1) + 1;
+    }
+
+    private static double number(String field) {
+        return field.isEmpty() || field.equals("NaN") ? 0 : Double.parseDouble(field);
+    }
+
+    // JMH quotes text fields and leaves numbers bare; no field contains a quote
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        for (String field : line.split(",", -1)) {
+            fields.add(field.startsWith("\"") ? field.substring(1, field.length() - 1) : field);
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,85 @@
+package com.lab;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.RepaintManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// What the dashboard does once per frame when the model changed: move the table on
+// to a new snapshot (what refreshTable used to do), and paint the visible rows.
+// Runs headless, painting into an image; nothing else touches these components,
+// so they are driven from the benchmark thread rather than the EDT.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "-Djava.awt.headless=true" })
+public class DashboardBenchmark {
+    private static final ItemModelEvent CHANGED = new ItemModelEvent(0, new long[0], new long[0], new long[0]);
+
+    @Param({ "list", "columnar", "mapped" })
+    String storage;
+
+    @Param({ "1000", "100000", "1000000" })
+    int size;
+
+    private ItemModel model;
+    private DashboardView dashboard;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup
+    public void setUp() {
+        model = Fixtures.model(storage, size);
+        dashboard = new DashboardView(new MainController(model), model);
+        dashboard.setSize(800, 600);
+        layOut(dashboard);
+        RepaintManager.currentManager(dashboard).setDoubleBufferingEnabled(false);
+        image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+        model.close();
+    }
+
+    @Benchmark
+    public void refreshTable() {
+        dashboard.modelChanged(CHANGED);
+    }
+
+    @Benchmark
+    public BufferedImage refreshAndPaint() {
+        dashboard.modelChanged(CHANGED);
+        dashboard.paint(graphics);
+        return image;
+    }
+
+    private static void layOut(Component component) {
+        if (component instanceof Container container) {
+            container.doLayout();
+            for (Component child : container.getComponents()) {
+                layOut(child);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.lab;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Models of a given storage and size for the benchmarks, filled with generated items
+final class Fixtures {
+    private Fixtures() {
+    }
+
+    // storage is an ItemStore.create kind, or "mapped" for a MappedItemStore in a temporary file
+    static ItemModel model(String storage, int size) {
+        ItemModel model;
+        if (storage.equals("mapped")) {
+            try {
+                Path file = Files.createTempFile("bench", ".inventory");
+                Files.delete(file);
+                file.toFile().deleteOnExit();
+                MappedItemStore.stringsFile(file).toFile().deleteOnExit();
+                model = new ItemModel(MappedItemStore.open(file));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            model = new ItemModel(ItemStore.create(storage));
+        }
+        for (int from = 0; from < size; from += InventoryCsv.BLOCK_SIZE) {
+            ItemModel.Batch batch = model.beginBatch();
+            for (int i = from; i < Math.min(size, from + InventoryCsv.BLOCK_SIZE); i++) {
+                batch.add(item(i));
+            }
+            batch.commit();
+        }
+        return model;
+    }
+
+    static Item item(int i) {
+        return new Item("Item " + i, "Generated item number " + i, (i % 1000) / 4.0, i % 50);
+    }
+
+    static long[] ids(ItemModel model) {
+        long[] ids = new long[model.size()];
+        for (int slot = 0; slot < ids.length; slot++) {
+            ids[slot] = model.getId(slot);
+        }
+        return ids;
+    }
+}
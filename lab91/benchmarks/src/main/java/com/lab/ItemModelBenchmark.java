@@ -0,0 +1,91 @@
+package com.lab;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Single edits and lookups against a model that stays at `size` items
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ItemModelBenchmark {
+    // Steps through the IDs in an order the caches cannot predict
+    private static final int STRIDE = 7919;
+
+    @Param({ "list", "columnar", "mapped" })
+    String storage;
+
+    @Param({ "1000", "100000", "1000000" })
+    int size;
+
+    private ItemModel model;
+    private long[] ids;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        model = Fixtures.model(storage, size);
+        ids = Fixtures.ids(model);
+    }
+
+    @TearDown
+    public void tearDown() {
+        model.close();
+    }
+
+    private long nextId() {
+        next += STRIDE;
+        if (next >= ids.length) {
+            next %= ids.length;
+        }
+        return ids[next];
+    }
+
+    // Lands in the last slot and is swap-removed straight away
+    @Benchmark
+    public long addThenDelete() {
+        Item item = Fixtures.item(next++);
+        model.addItem(item);
+        model.deleteItem(item.getId());
+        return item.getId();
+    }
+
+    // Removes from the middle, which moves the last item, then puts the item back
+    @Benchmark
+    public int deleteThenRestore() {
+        long id = nextId();
+        Item item = model.getItem(id);
+        model.deleteItem(id);
+        return model.restoreItem(id, item.getName(), item.getDescription(), item.getPrice(), item.getAmount());
+    }
+
+    @Benchmark
+    public int update() {
+        long id = nextId();
+        return model.updateItem(id, "Renamed " + next, "Generated item", next % 100, next % 7);
+    }
+
+    @Benchmark
+    public Item lookup() {
+        return model.getItem(nextId());
+    }
+
+    @Benchmark
+    public int slotOf() {
+        return model.slotOf(nextId());
+    }
+}
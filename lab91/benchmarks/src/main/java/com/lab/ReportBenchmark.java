@@ -0,0 +1,64 @@
+package com.lab;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The report's totals come from running totals; recount is the full aggregation
+// they avoid, and what verifyTotals pays. The breakdowns are ReportEngine's one
+// pass, which ReportView runs on a worker.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "-Djava.awt.headless=true" })
+public class ReportBenchmark {
+    @Param({ "list", "columnar", "mapped" })
+    String storage;
+
+    @Param({ "1000", "100000", "1000000" })
+    int size;
+
+    private ItemModel model;
+    private ReportEngine engine = new ReportEngine();
+
+    @Setup
+    public void setUp() {
+        model = Fixtures.model(storage, size);
+    }
+
+    @TearDown
+    public void tearDown() {
+        model.close();
+    }
+
+    // What ReportView.refresh reads on the EDT
+    @Benchmark
+    public double reportTotals() {
+        try (ItemModel.Snapshot snapshot = model.snapshot()) {
+            return snapshot.getTotalAmount() + snapshot.getTotalPrice();
+        }
+    }
+
+    @Benchmark
+    public ReportEngine.Report breakdowns() {
+        return engine.compute(model);
+    }
+
+    @Benchmark
+    public void recount() {
+        model.verifyTotals();
+    }
+}
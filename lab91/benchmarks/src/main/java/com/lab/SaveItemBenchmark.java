@@ -0,0 +1,60 @@
+package com.lab;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// MainController.saveItem as the Save button runs it, on the EDT: model update,
+// undo entry and card switch, plus one EDT round trip. The dashboard repaint it
+// triggers is merged per frame and lands on the EDT in between.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "-Djava.awt.headless=true" })
+public class SaveItemBenchmark {
+    @Param({ "list", "columnar", "mapped" })
+    String storage;
+
+    @Param({ "1000", "100000", "1000000" })
+    int size;
+
+    private ItemModel model;
+    private MainController controller;
+    private long[] ids;
+    private int next;
+
+    @Setup
+    public void setUp() throws InterruptedException, InvocationTargetException {
+        model = Fixtures.model(storage, size);
+        ids = Fixtures.ids(model);
+        SwingUtilities.invokeAndWait(() -> controller = new MainController(model));
+    }
+
+    @TearDown
+    public void tearDown() {
+        model.close();
+    }
+
+    @Benchmark
+    public void saveItem() throws InterruptedException, InvocationTargetException {
+        int i = next++;
+        long id = ids[i % ids.length];
+        SwingUtilities.invokeAndWait(() -> controller.saveItem(id, "Item " + i, "Edited", i % 100, i % 7));
+    }
+}
@@ -0,0 +1,103 @@
+package com.lab;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The totals kernels over columns chunked the way ColumnarItemStore keeps them.
+// The vector kernel needs lab91 installed with -Psimd; the fork adds its module.
+// "bigdecimal" and "double" are what the cent sums are measured against: the usual
+// exact alternative, and the inexact sum of doubles the model used to keep.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "--add-modules=jdk.incubator.vector" })
+public class TotalsBenchmark {
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    @Param({ "scalar", "vector", "bigdecimal", "double" })
+    String kernel;
+
+    @Param({ "100000", "1000000", "10000000" })
+    int size;
+
+    private TotalsKernel totals;
+    private long[][] prices;
+    private int[][] amounts;
+
+    @Setup
+    public void setUp() {
+        totals = switch (kernel) {
+            case "scalar" -> new ScalarTotalsKernel();
+            case "bigdecimal" -> new BigDecimalKernel();
+            case "double" -> new DoubleKernel();
+            default -> TotalsKernel.vector();
+        };
+        if (totals == null) {
+            throw new IllegalStateException("No vector kernel: install lab91 with -Psimd");
+        }
+        Random random = new Random(1);
+        int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        prices = new long[chunks][CHUNK_SIZE];
+        amounts = new int[chunks][CHUNK_SIZE];
+        for (int i = 0; i < size; i++) {
+            prices[i / CHUNK_SIZE][i % CHUNK_SIZE] = random.nextInt(100_000);
+            amounts[i / CHUNK_SIZE][i % CHUNK_SIZE] = random.nextInt(50);
+        }
+    }
+
+    @Benchmark
+    public ColumnTotals accumulate() {
+        ColumnTotals into = new ColumnTotals();
+        for (int c = 0; c < prices.length; c++) {
+            totals.accumulate(prices[c], amounts[c], Math.min(CHUNK_SIZE, size - c * CHUNK_SIZE), into);
+        }
+        return into;
+    }
+
+    private static class BigDecimalKernel implements TotalsKernel {
+        @Override
+        public void accumulate(long[] prices, int[] amounts, int length, ColumnTotals into) {
+            BigDecimal value = BigDecimal.ZERO;
+            long amount = 0;
+            for (int i = 0; i < length; i++) {
+                value = value.add(BigDecimal.valueOf(prices[i], Money.SCALE).multiply(BigDecimal.valueOf(amounts[i])));
+                amount += amounts[i];
+            }
+            into.add(length, amount, value.unscaledValue().longValueExact(), 0, 0);
+        }
+
+        @Override
+        public String name() { return "bigdecimal"; }
+    }
+
+    private static class DoubleKernel implements TotalsKernel {
+        @Override
+        public void accumulate(long[] prices, int[] amounts, int length, ColumnTotals into) {
+            double value = 0;
+            long amount = 0;
+            for (int i = 0; i < length; i++) {
+                value += prices[i] / 100.0 * amounts[i];
+                amount += amounts[i];
+            }
+            into.add(length, amount, (long) (value * 100), 0, 0);
+        }
+
+        @Override
+        public String name() { return "double"; }
+    }
+}
@@ -1,14 +1,41 @@
 package com.lab;
 
 import javax.swing.SwingUtilities;
+import java.nio.file.Path;
+import java.util.Arrays;
 
 public class App {
     public static void main(String[] args) {
+        // Hand over before anything touches Swing, so no AWT class is ever loaded
+        if (args.length > 0 && args[0].equals("--headless")) {
+            HeadlessApp.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         // Start the App on the Event Dispatch Thread
-        SwingUtilities.invokeLater(() -> {
-            ItemModel model = new ItemModel();
+        SwingUtilities.invokeLater(Gui::start);
+    }
+
+    static ItemModel createModel() {
+        ItemModel model = ModelFactory.create();
+        if (ModelFactory.isPersistent()) {
+            // Flushes the journal and marks the file cleanly closed; without this the next start rescans it
+            Runtime.getRuntime().addShutdownHook(new Thread(model::close));
+        }
+        return model;
+    }
+
+    // A class of its own: verifying this code loads Swing classes, and App is also
+    // the headless entry point
+    private static class Gui {
+        static void start() {
+            ItemModel model = createModel();
             MainController controller = new MainController(model);
+            // Show the frame first; a journaled inventory streams in afterwards
             controller.start();
-        });
+            Path journal = ModelFactory.journalToLoad();
+            if (journal != null) {
+                controller.load(new InventoryLoader(journal, model, controller));
+            }
+        }
     }
-}
\ No newline at end of file
+}
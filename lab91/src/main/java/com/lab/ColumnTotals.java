@@ -0,0 +1,34 @@
+package com.lab;
+
+// Sums over the price and amount columns: how many rows, their units, their stock
+// value, and the lowest and highest price. Filled a stretch at a time by a
+// TotalsKernel. Everything is in whole units or cents, so every kernel arrives at
+// exactly the same figures.
+public class ColumnTotals {
+    private long count;
+    private long amount;
+    private long valueCents;
+    private long minPriceCents = Long.MAX_VALUE;
+    private long maxPriceCents = Long.MIN_VALUE;
+
+    public long getCount() { return count; }
+
+    public long getAmount() { return amount; }
+
+    public long getValueCents() { return valueCents; }
+
+    public double getValue() { return Money.toPrice(valueCents); }
+
+    // Long.MAX_VALUE and Long.MIN_VALUE while there are no rows
+    public long getMinPriceCents() { return minPriceCents; }
+
+    public long getMaxPriceCents() { return maxPriceCents; }
+
+    public void add(long count, long amount, long valueCents, long minPriceCents, long maxPriceCents) {
+        this.count += count;
+        this.amount = Math.addExact(this.amount, amount);
+        this.valueCents = Math.addExact(this.valueCents, valueCents);
+        this.minPriceCents = Math.min(this.minPriceCents, minPriceCents);
+        this.maxPriceCents = Math.max(this.maxPriceCents, maxPriceCents);
+    }
+}
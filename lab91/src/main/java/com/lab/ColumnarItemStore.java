@@ -0,0 +1,221 @@
+package com.lab;
+
+import java.util.Arrays;
+
+// Primitive-backed storage for very large inventories: each field lives in its
+// own column, split into fixed-size chunks so growing never copies a column.
+// Names are packed into a shared UTF-8 StringArea. Descriptions repeat across
+// many rows, so the column holds StringDictionary codes instead.
+public class ColumnarItemStore implements ItemStore {
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private long[][] ids = new long[0][];
+    // In cents
+    private long[][] prices = new long[0][];
+    private int[][] amounts = new int[0][];
+    private long[][] names = new long[0][];
+    private int[][] descriptions = new int[0][];
+    private int chunkCount;
+    private int size;
+
+    private StringArea strings = new StringArea();
+    private final StringDictionary dictionary = new StringDictionary();
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public long getId(int slot) { return ids[chunk(slot)][offset(slot)]; }
+
+    @Override
+    public String getName(int slot) { return strings.get(names[chunk(slot)][offset(slot)]); }
+
+    @Override
+    public String getDescription(int slot) { return dictionary.get(descriptions[chunk(slot)][offset(slot)]); }
+
+    @Override
+    public long getPriceCents(int slot) { return prices[chunk(slot)][offset(slot)]; }
+
+    @Override
+    public int getAmount(int slot) { return amounts[chunk(slot)][offset(slot)]; }
+
+    @Override
+    public Item getItem(int slot) {
+        checkSlot(slot);
+        return new Row(slot);
+    }
+
+    // Chunk by chunk, straight from the columns
+    @Override
+    public void accumulateTotals(TotalsKernel kernel, ColumnTotals into) {
+        for (int c = 0; c < chunkCount && c * CHUNK_SIZE < size; c++) {
+            kernel.accumulate(prices[c], amounts[c], Math.min(CHUNK_SIZE, size - c * CHUNK_SIZE), into);
+        }
+    }
+
+    @Override
+    public void add(long id, String name, String description, long priceCents, int amount) {
+        if (size == chunkCount * CHUNK_SIZE) {
+            addChunk();
+        }
+        int c = chunk(size);
+        int o = offset(size);
+        ids[c][o] = id;
+        prices[c][o] = priceCents;
+        amounts[c][o] = amount;
+        names[c][o] = strings.append(name);
+        descriptions[c][o] = dictionary.acquire(description);
+        size++;
+    }
+
+    @Override
+    public void set(int slot, String name, String description, long priceCents, int amount) {
+        checkSlot(slot);
+        int c = chunk(slot);
+        int o = offset(slot);
+        prices[c][o] = priceCents;
+        amounts[c][o] = amount;
+        // Unchanged strings keep their bytes instead of appending a duplicate
+        if (!equal(strings.get(names[c][o]), name)) {
+            strings.release(names[c][o]);
+            names[c][o] = strings.append(name);
+        }
+        if (!equal(dictionary.get(descriptions[c][o]), description)) {
+            int code = dictionary.acquire(description);
+            dictionary.release(descriptions[c][o]);
+            descriptions[c][o] = code;
+        }
+        compactIfWasteful();
+    }
+
+    @Override
+    public void move(int from, int to) {
+        checkSlot(from);
+        checkSlot(to);
+        if (from == to) {
+            return;
+        }
+        int fromChunk = chunk(from);
+        int fromOffset = offset(from);
+        int toChunk = chunk(to);
+        int toOffset = offset(to);
+        strings.release(names[toChunk][toOffset]);
+        dictionary.release(descriptions[toChunk][toOffset]);
+        ids[toChunk][toOffset] = ids[fromChunk][fromOffset];
+        prices[toChunk][toOffset] = prices[fromChunk][fromOffset];
+        amounts[toChunk][toOffset] = amounts[fromChunk][fromOffset];
+        names[toChunk][toOffset] = names[fromChunk][fromOffset];
+        descriptions[toChunk][toOffset] = descriptions[fromChunk][fromOffset];
+        // The source row is about to be dropped; its strings now belong to "to"
+        names[fromChunk][fromOffset] = StringArea.NULL;
+        descriptions[fromChunk][fromOffset] = StringDictionary.NULL;
+    }
+
+    @Override
+    public void removeLast() {
+        if (size == 0) {
+            throw new IndexOutOfBoundsException("Store is empty");
+        }
+        int last = size - 1;
+        strings.release(names[chunk(last)][offset(last)]);
+        dictionary.release(descriptions[chunk(last)][offset(last)]);
+        size--;
+        compactIfWasteful();
+    }
+
+    // Rough on-heap footprint of the columns, the string area and the dictionary, in bytes
+    public long estimatedBytes() {
+        long perRow = 8 + 8 + 4 + 8 + 4;
+        return (long) chunkCount * CHUNK_SIZE * perRow + strings.capacityBytes() + dictionary.estimatedBytes();
+    }
+
+    public int distinctDescriptions() { return dictionary.size(); }
+
+    private void addChunk() {
+        if (chunkCount == ids.length) {
+            int grown = Math.max(4, chunkCount * 2);
+            ids = Arrays.copyOf(ids, grown);
+            prices = Arrays.copyOf(prices, grown);
+            amounts = Arrays.copyOf(amounts, grown);
+            names = Arrays.copyOf(names, grown);
+            descriptions = Arrays.copyOf(descriptions, grown);
+        }
+        ids[chunkCount] = new long[CHUNK_SIZE];
+        prices[chunkCount] = new long[CHUNK_SIZE];
+        amounts[chunkCount] = new int[CHUNK_SIZE];
+        names[chunkCount] = new long[CHUNK_SIZE];
+        descriptions[chunkCount] = new int[CHUNK_SIZE];
+        chunkCount++;
+    }
+
+    // Rewrites the live names into a fresh area once more than half of it is garbage
+    private void compactIfWasteful() {
+        if (strings.garbageBytes() < (1 << 20) || strings.garbageBytes() * 2 < strings.usedBytes()) {
+            return;
+        }
+        StringArea old = strings;
+        StringArea fresh = new StringArea();
+        for (int slot = 0; slot < size; slot++) {
+            int c = chunk(slot);
+            int o = offset(slot);
+            names[c][o] = fresh.append(old.get(names[c][o]));
+        }
+        strings = fresh;
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " out of bounds for size " + size);
+        }
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static int chunk(int slot) { return slot >>> CHUNK_BITS; }
+
+    private static int offset(int slot) { return slot & CHUNK_MASK; }
+
+    // Flyweight Item over one slot of the columns. It reads through to the
+    // store, so it is only meaningful until that slot is moved or removed.
+    private class Row extends Item {
+        private final int slot;
+
+        Row(int slot) {
+            super(null, null, 0, 0);
+            this.slot = slot;
+            super.setId(ColumnarItemStore.this.getId(slot));
+        }
+
+        @Override
+        public String getName() { return ColumnarItemStore.this.getName(slot); }
+
+        @Override
+        public String getDescription() { return ColumnarItemStore.this.getDescription(slot); }
+
+        @Override
+        public long getPriceCents() { return ColumnarItemStore.this.getPriceCents(slot); }
+
+        @Override
+        public int getAmount() { return ColumnarItemStore.this.getAmount(slot); }
+
+        @Override
+        public void setName(String name) { throw readOnly(); }
+
+        @Override
+        public void setDescription(String description) { throw readOnly(); }
+
+        @Override
+        public void setPriceCents(long priceCents) { throw readOnly(); }
+
+        @Override
+        public void setAmount(int amount) { throw readOnly(); }
+
+        private UnsupportedOperationException readOnly() {
+            return new UnsupportedOperationException("Columnar rows are views; update them through ItemModel");
+        }
+    }
+}
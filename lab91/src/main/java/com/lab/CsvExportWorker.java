@@ -0,0 +1,38 @@
+package com.lab;
+
+import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+
+// Writes a snapshot of the inventory to a CSV file off the EDT; editing carries on meanwhile
+public class CsvExportWorker extends SwingWorker<InventoryCsv.Stats, Void> {
+    private static final System.Logger LOG = System.getLogger(CsvExportWorker.class.getName());
+
+    private final Path file;
+    private final ItemModel model;
+    private final MainController controller;
+
+    public CsvExportWorker(Path file, ItemModel model, MainController controller) {
+        this.file = file;
+        this.model = model;
+        this.controller = controller;
+    }
+
+    @Override
+    protected InventoryCsv.Stats doInBackground() throws Exception {
+        return InventoryCsv.write(file, model);
+    }
+
+    @Override
+    protected void done() {
+        controller.exportFinished();
+        try {
+            JOptionPane.showMessageDialog(null, "Exported " + get());
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            LOG.log(System.Logger.Level.ERROR, "Could not export " + file, cause);
+            JOptionPane.showMessageDialog(null, "Could not export " + file + ": " + cause.getMessage());
+        }
+    }
+}
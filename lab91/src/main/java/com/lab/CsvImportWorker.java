@@ -0,0 +1,51 @@
+package com.lab;
+
+import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+// Parses a CSV file off the EDT on all cores and adds the rows to the model in
+// blocks, one batch per block, while the dashboard shows progress. The blocks are
+// applied on the worker thread as they arrive, so the parsers wait on the model
+// rather than queueing the file up for the EDT; only the row counts are published.
+public class CsvImportWorker extends SwingWorker<InventoryCsv.Stats, Integer> {
+    private static final System.Logger LOG = System.getLogger(CsvImportWorker.class.getName());
+
+    private final Path file;
+    private final ItemModel model;
+    private final MainController controller;
+
+    public CsvImportWorker(Path file, ItemModel model, MainController controller) {
+        this.file = file;
+        this.model = model;
+        this.controller = controller;
+    }
+
+    @Override
+    protected InventoryCsv.Stats doInBackground() throws Exception {
+        return InventoryCsv.read(file, Runtime.getRuntime().availableProcessors(), rows -> {
+            rows.applyTo(model);
+            publish(rows.size());
+        });
+    }
+
+    // The rows themselves reach the table through modelChanged
+    @Override
+    protected void process(List<Integer> blocks) {
+        controller.itemsLoaded(false);
+    }
+
+    @Override
+    protected void done() {
+        controller.itemsLoaded(true);
+        try {
+            JOptionPane.showMessageDialog(null, "Imported " + get());
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            LOG.log(System.Logger.Level.ERROR, "Could not import " + file, cause);
+            JOptionPane.showMessageDialog(null, "Could not import " + file + ": " + cause.getMessage());
+        }
+    }
+}
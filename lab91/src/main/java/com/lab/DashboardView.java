@@ -1,70 +1,330 @@
 package com.lab;
 
+import javax.swing.AbstractAction;
 import javax.swing.JPanel;
 import javax.swing.JTable;
 import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
 import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.JOptionPane;
-import javax.swing.table.DefaultTableModel;
 import java.awt.BorderLayout;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.concurrent.ExecutionException;
 
 public class DashboardView extends JPanel {
+    private static final System.Logger LOG = System.getLogger(DashboardView.class.getName());
+    private static final int SEARCH_DELAY_MS = 150;
+
     private MainController controller;
     private ItemModel model;
     private JTable table;
-    private DefaultTableModel tableModel;
+    private ItemTableModel tableModel;
+    private JLabel statusLabel;
+    private JButton addBtn;
+    private JButton deleteBtn;
+    private JButton importBtn;
+    private JButton exportBtn;
+    private boolean loading;
+    private JTextField searchField;
+    private Timer searchTimer;
+    // The query in flight; a newer one supersedes it
+    private SwingWorker<long[], Void> search;
 
     public DashboardView(MainController controller, ItemModel model) {
         this.controller = controller;
         this.model = model;
         setLayout(new BorderLayout());
 
-        String[] columns = { "Name", "Description" };
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-
+        tableModel = new ItemTableModel(model, pageCache(model));
         table = new JTable(tableModel);
-        refreshTable();
+        table.getColumnModel().getColumn(0).setCellRenderer(new TextCellRenderer());
+        table.getColumnModel().getColumn(1).setCellRenderer(new TextCellRenderer());
+        table.getColumnModel().getColumn(2).setCellRenderer(NumberCellRenderer.decimal());
+        table.getColumnModel().getColumn(3).setCellRenderer(NumberCellRenderer.integer());
+        table.getColumnModel().getColumn(4).setCellRenderer(NumberCellRenderer.decimal());
 
         table.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                if (e.getClickCount() == 2) {
+                if (e.getClickCount() == 2 && !loading) {
                     int selectedRow = table.getSelectedRow();
                     if (selectedRow != -1) {
-                        Item selectedItem = model.getItems().get(selectedRow);
-                        controller.showDetailView(selectedItem);
+                        long id = tableModel.getItemId(table.convertRowIndexToModel(selectedRow));
+                        controller.showDetailView(id);
                     }
                 }
             }
         });
 
-        JButton deleteBtn = new JButton("Delete Selected");
+        // Sorting switches to an order the model already maintains; there is no RowSorter
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.convertColumnIndexToModel(table.columnAtPoint(e.getPoint()));
+                if (column != -1) {
+                    toggleSort(column);
+                }
+            }
+        });
+
+        deleteBtn = new JButton("Delete Selected");
         deleteBtn.addActionListener(e -> {
-            int selectedRow = table.getSelectedRow();
-            if (selectedRow != -1) {
-                Item itemToDelete = model.getItems().get(selectedRow);
+            int[] selectedRows = table.getSelectedRows();
+            if (selectedRows.length == 1) {
+                long id = tableModel.getItemId(table.convertRowIndexToModel(selectedRows[0]));
                 // Delegate to Controller
-                controller.deleteItem(itemToDelete);
+                controller.deleteItem(id);
+            } else if (selectedRows.length > 1) {
+                long[] ids = new long[selectedRows.length];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = tableModel.getItemId(table.convertRowIndexToModel(selectedRows[i]));
+                }
+                controller.deleteItems(ids);
             } else {
                 JOptionPane.showMessageDialog(this, "Please select an item to delete.");
             }
         });
 
-        add(new JScrollPane(table), BorderLayout.CENTER);
-        add(deleteBtn, BorderLayout.SOUTH);
+        addBtn = new JButton("Add");
+        addBtn.addActionListener(e -> controller.showAddView());
+
+        JButton reportBtn = new JButton("Report");
+        reportBtn.addActionListener(e -> controller.showReportView());
+
+        importBtn = new JButton("Import CSV\u2026");
+        importBtn.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                controller.importCsv(chooser.getSelectedFile().toPath());
+            }
+        });
+
+        exportBtn = new JButton("Export CSV\u2026");
+        exportBtn.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+                controller.exportCsv(chooser.getSelectedFile().toPath());
+            }
+        });
+
+        JPanel buttons = new JPanel();
+        buttons.add(addBtn);
+        buttons.add(deleteBtn);
+        buttons.add(reportBtn);
+        buttons.add(importBtn);
+        buttons.add(exportBtn);
+
+        searchField = new JTextField(20);
+        // Debounced: the query runs once typing pauses, not on every keystroke
+        searchTimer = new Timer(SEARCH_DELAY_MS, e -> runSearch());
+        searchTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) { searchTimer.restart(); }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) { searchTimer.restart(); }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) { searchTimer.restart(); }
+        });
+
+        JPanel searchRow = new JPanel(new BorderLayout(5, 0));
+        searchRow.add(new JLabel("Search:"), BorderLayout.WEST);
+        searchRow.add(searchField, BorderLayout.CENTER);
+
+        statusLabel = new JLabel();
+        statusLabel.setVisible(false);
+
+        JPanel top = new JPanel(new BorderLayout());
+        top.add(searchRow, BorderLayout.NORTH);
+        top.add(statusLabel, BorderLayout.SOUTH);
+
+        add(top, BorderLayout.NORTH);
+        JScrollPane scrollPane = new JScrollPane(table);
+        if (tableModel.isPaged()) {
+            // Tells the page cache what is in view, and so which way the table scrolls
+            scrollPane.getViewport().addChangeListener(e -> {
+                Rectangle view = scrollPane.getViewport().getViewRect();
+                int first = table.rowAtPoint(view.getLocation());
+                int last = table.rowAtPoint(new Point(view.x, view.y + view.height - 1));
+                if (first != -1) {
+                    tableModel.viewportChanged(first, last != -1 ? last : table.getRowCount() - 1);
+                }
+            });
+        }
+        add(scrollPane, BorderLayout.CENTER);
+        add(buttons, BorderLayout.SOUTH);
+
+        bindKey(KeyEvent.VK_Z, "undo", controller::undo);
+        bindKey(KeyEvent.VK_Y, "redo", controller::redo);
+
+        // Not on any button: the diagnostics card is for whoever is chasing a slowdown
+        getInputMap(WHEN_ANCESTOR_OF_FOCUSED_COMPONENT).put(KeyStroke.getKeyStroke(KeyEvent.VK_D,
+                InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK), "diagnostics");
+        getActionMap().put("diagnostics", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                controller.showDiagnostics();
+            }
+        });
+    }
+
+    // -Dinventory.dashboard=direct|paged. Paged reads the table through an LRU cache
+    // of -Dinventory.pages pages of -Dinventory.pageRows rows, so its heap stays flat
+    // however large the inventory is; meant for an inventory.file too big for the heap
+    private static RowPageCache pageCache(ItemModel model) {
+        String mode = System.getProperty("inventory.dashboard", "direct");
+        return switch (mode) {
+            case "direct" -> null;
+            case "paged" -> new RowPageCache(model, Integer.getInteger("inventory.pageRows", 64),
+                    Integer.getInteger("inventory.pages", 256));
+            default -> throw new IllegalArgumentException("Unknown dashboard mode: " + mode);
+        };
+    }
+
+    // Ctrl+<key> anywhere on the dashboard; ignored while loading
+    private void bindKey(int key, String name, Runnable action) {
+        getInputMap(WHEN_ANCESTOR_OF_FOCUSED_COMPONENT).put(KeyStroke.getKeyStroke(key, InputEvent.CTRL_DOWN_MASK),
+                name);
+        getActionMap().put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (!loading) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    // Called on the EDT, at most once a frame, with every change made since the last
+    // call, whichever thread made it
+    public void modelChanged(ItemModelEvent event) {
+        tableModel.refresh();
+        researchIfFiltered();
     }
 
-    public void refreshTable() {
-        tableModel.setRowCount(0);
-        for (Item item : model.getItems()) {
-            tableModel.addRow(new Object[] { item.getName(), item.getDescription() });
+    // Edits are blocked while loading: they would not reach the journal yet
+    public void setLoading(boolean loading) {
+        setBusy(loading, String.format("Loading inventory\u2026 %,d items so far", model.size()));
+    }
+
+    // Blocks edits and shows the status line while a background task owns the model
+    public void setBusy(boolean busy, String status) {
+        this.loading = busy;
+        addBtn.setEnabled(!busy);
+        deleteBtn.setEnabled(!busy);
+        importBtn.setEnabled(!busy);
+        exportBtn.setEnabled(!busy);
+        statusLabel.setVisible(busy);
+        statusLabel.setText(status);
+    }
+
+    // Only one file operation at a time; editing goes on
+    public void setExporting(boolean exporting, String status) {
+        importBtn.setEnabled(!exporting);
+        exportBtn.setEnabled(!exporting);
+        statusLabel.setVisible(exporting);
+        statusLabel.setText(status);
+    }
+
+    // Ascending, then descending, then back to the unsorted slot order
+    private void toggleSort(int column) {
+        ItemOrder by = tableModel.getColumnOrder(column);
+        if (by == null) {
+            return;
+        }
+        if (tableModel.getOrder() == by) {
+            if (!tableModel.isDescending()) {
+                tableModel.setOrder(by, true);
+            } else {
+                tableModel.setOrder(null, false);
+            }
+            updateSortIndicators();
+            return;
         }
+        // The first sort by a column builds its index, so that happens off the EDT
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                model.prepareOrder(by);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    tableModel.setOrder(by, false);
+                    updateSortIndicators();
+                } catch (Exception e) {
+                    LOG.log(System.Logger.Level.ERROR, "Could not sort by " + by,
+                            e instanceof ExecutionException ? e.getCause() : e);
+                }
+            }
+        }.execute();
+    }
+
+    private void updateSortIndicators() {
+        ItemOrder order = tableModel.getOrder();
+        for (int i = 0; i < table.getColumnCount(); i++) {
+            int column = table.convertColumnIndexToModel(i);
+            String name = tableModel.getColumnName(column);
+            if (order != null && tableModel.getColumnOrder(column) == order) {
+                name += tableModel.isDescending() ? " \u25BC" : " \u25B2";
+            }
+            table.getColumnModel().getColumn(i).setHeaderValue(name);
+        }
+        table.getTableHeader().repaint();
+    }
+
+    // Search results are a snapshot of IDs, so an edit may add or drop matches. A
+    // pending search is not pushed back, or a steady stream of writes would starve it.
+    private void researchIfFiltered() {
+        if (tableModel.isFiltered() && !searchTimer.isRunning()) {
+            searchTimer.start();
+        }
+    }
+
+    // Runs the query off the EDT and publishes only the matching IDs back
+    private void runSearch() {
+        String query = searchField.getText();
+        if (search != null) {
+            search.cancel(false);
+        }
+        SwingWorker<long[], Void> worker = new SwingWorker<>() {
+            @Override
+            protected long[] doInBackground() {
+                return model.search(query);
+            }
+
+            @Override
+            protected void done() {
+                if (search != this || isCancelled()) {
+                    return;
+                }
+                try {
+                    tableModel.setFilter(get());
+                } catch (Exception e) {
+                    LOG.log(System.Logger.Level.ERROR, "Search for \"" + query + "\" failed",
+                            e instanceof ExecutionException ? e.getCause() : e);
+                }
+            }
+        };
+        search = worker;
+        worker.execute();
     }
 }
@@ -4,32 +4,52 @@ import javax.swing.JPanel;
 import javax.swing.JTextField;
 import javax.swing.JButton;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
 import javax.swing.BorderFactory;
 import java.awt.GridLayout;
 
 public class DetailView extends JPanel {
     private MainController controller;
-    private Item currentItem;
+    private long currentItemId;
     private JTextField nameField;
     private JTextField descField;
+    private JTextField priceField;
+    private JTextField amountField;
 
     public DetailView(MainController controller) {
         this.controller = controller;
-        setLayout(new GridLayout(3, 2, 10, 10));
+        setLayout(new GridLayout(5, 2, 10, 10));
         setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
 
         nameField = new JTextField();
         descField = new JTextField();
+        priceField = new JTextField();
+        amountField = new JTextField();
 
         JButton saveBtn = new JButton("Save");
         JButton cancelBtn = new JButton("Cancel");
 
         saveBtn.addActionListener(e -> {
-            if (currentItem != null) {
-                // Delegate to Controller
-                String newName = nameField.getText();
-                String newDesc = descField.getText();
-                controller.saveItem(currentItem, newName, newDesc);
+            String newName = nameField.getText().strip();
+            String newDesc = descField.getText();
+            double newPrice;
+            int newAmount;
+            try {
+                newPrice = Double.parseDouble(priceField.getText().strip());
+                newAmount = Integer.parseInt(amountField.getText().strip());
+            } catch (NumberFormatException ex) {
+                newPrice = -1;
+                newAmount = -1;
+            }
+            if (newName.isEmpty() || !(newPrice >= 0) || newAmount < 0 || !Money.fits(newPrice, newAmount)) {
+                JOptionPane.showMessageDialog(this, "Invalid details. Please correct them and try again.");
+                return;
+            }
+            // Delegate to Controller
+            if (currentItemId == 0) {
+                controller.addItem(newName, newDesc, newPrice, newAmount);
+            } else {
+                controller.saveItem(currentItemId, newName, newDesc, newPrice, newAmount);
             }
         });
 
@@ -39,13 +59,27 @@ public class DetailView extends JPanel {
         add(nameField);
         add(new JLabel("Description:"));
         add(descField);
+        add(new JLabel("Price:"));
+        add(priceField);
+        add(new JLabel("Amount:"));
+        add(amountField);
         add(saveBtn);
         add(cancelBtn);
     }
 
+    // A null item clears the form for a new entry
     public void populateData(Item item) {
-        this.currentItem = item;
-        nameField.setText(item.getName());
-        descField.setText(item.getDescription());
+        this.currentItemId = item == null ? 0 : item.getId();
+        if (item == null) {
+            nameField.setText("");
+            descField.setText("");
+            priceField.setText("");
+            amountField.setText("");
+        } else {
+            nameField.setText(item.getName());
+            descField.setText(item.getDescription());
+            priceField.setText(String.valueOf(item.getPrice()));
+            amountField.setText(String.valueOf(item.getAmount()));
+        }
     }
 }
@@ -0,0 +1,67 @@
+package com.lab;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.io.File;
+import java.io.IOException;
+
+// Hidden card (Ctrl+Shift+D on the dashboard) with the controller's action
+// latencies and the EDT stalls the watchdog caught
+public class DiagnosticsView extends JPanel {
+    private MainController controller;
+    private Metrics metrics;
+    private JTextArea text;
+
+    public DiagnosticsView(MainController controller, Metrics metrics) {
+        this.controller = controller;
+        this.metrics = metrics;
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        text = new JTextArea();
+        text.setEditable(false);
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        JButton refreshBtn = new JButton("Refresh");
+        refreshBtn.addActionListener(e -> refresh());
+        JButton dumpBtn = new JButton("Dump to File");
+        dumpBtn.addActionListener(e -> dump());
+        JButton backBtn = new JButton("Back");
+        backBtn.addActionListener(e -> controller.returnToDashboard());
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.add(refreshBtn);
+        buttons.add(dumpBtn);
+        buttons.add(backBtn);
+
+        add(new JScrollPane(text), BorderLayout.CENTER);
+        add(buttons, BorderLayout.SOUTH);
+    }
+
+    public void refresh() {
+        text.setText(metrics.report());
+        text.setCaretPosition(0);
+    }
+
+    private void dump() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("inventory-metrics.txt"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        try {
+            metrics.dump(file.toPath());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not write " + file + ": " + e.getMessage());
+        }
+    }
+}
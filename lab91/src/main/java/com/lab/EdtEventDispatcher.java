@@ -0,0 +1,63 @@
+package com.lab;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+// Hands model events to a listener on the EDT. Everything that arrives within one
+// frame is merged into a single event, so a writer doing 10,000 updates a second
+// costs at most one invokeLater and one repaint per frame, not one per update.
+public class EdtEventDispatcher implements ItemModelListener {
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+
+    private final ItemModelListener target;
+
+    // Guarded by this
+    private ItemModelEvent.Builder pending = new ItemModelEvent.Builder();
+    private long pendingVersion;
+    private boolean scheduled;
+
+    // EDT only
+    private long lastDelivery;
+    private Timer frameTimer;
+    private int deliveries;
+
+    public EdtEventDispatcher(ItemModelListener target) {
+        this.target = target;
+    }
+
+    // How many merged events the target has received so far
+    public int getDeliveries() { return deliveries; }
+
+    @Override
+    public synchronized void modelChanged(ItemModelEvent event) {
+        pending.merge(event);
+        pendingVersion = Math.max(pendingVersion, event.getVersion());
+        if (!scheduled) {
+            scheduled = true;
+            SwingUtilities.invokeLater(this::deliver);
+        }
+    }
+
+    // Runs on the EDT; if the last delivery was less than a frame ago, waits out the
+    // rest of the frame so later events can join this one
+    private void deliver() {
+        long wait = lastDelivery + FRAME_NANOS - System.nanoTime();
+        if (deliveries > 0 && wait > 0) {
+            if (frameTimer == null) {
+                frameTimer = new Timer(0, e -> deliver());
+                frameTimer.setRepeats(false);
+            }
+            frameTimer.setInitialDelay((int) Math.max(1, wait / 1_000_000));
+            frameTimer.restart();
+            return;
+        }
+        ItemModelEvent event;
+        synchronized (this) {
+            event = pending.build(pendingVersion);
+            scheduled = false;
+        }
+        lastDelivery = System.nanoTime();
+        deliveries++;
+        target.modelChanged(event);
+    }
+}
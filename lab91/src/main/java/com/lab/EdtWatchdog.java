@@ -0,0 +1,68 @@
+package com.lab;
+
+import java.awt.EventQueue;
+
+// Posts a heartbeat to the EDT every quarter of the threshold and times how long
+// it waits to run. When one waits longer than the threshold, the EDT's stack is
+// captured right then, while it is still stuck in whatever blocks it.
+public class EdtWatchdog {
+    private final Metrics metrics;
+    private final long thresholdNanos;
+    private volatile boolean running;
+    private volatile Thread edt;
+    private Thread thread;
+
+    // Set by the heartbeat on the EDT, read by the watchdog thread
+    private volatile boolean pending;
+
+    public EdtWatchdog(Metrics metrics, long thresholdMillis) {
+        this.metrics = metrics;
+        this.thresholdNanos = thresholdMillis * 1_000_000;
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(this::watch, "edt-watchdog");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        thread.interrupt();
+    }
+
+    private void watch() {
+        long period = Math.max(1, thresholdNanos / 4 / 1_000_000);
+        try {
+            while (running) {
+                long sent = System.nanoTime();
+                pending = true;
+                EventQueue.invokeLater(() -> {
+                    edt = Thread.currentThread();
+                    pending = false;
+                });
+                Metrics.Stall stall = null;
+                while (pending && running) {
+                    Thread.sleep(period);
+                    long waited = System.nanoTime() - sent;
+                    if (stall == null && waited > thresholdNanos && edt != null) {
+                        stall = new Metrics.Stall(System.currentTimeMillis() - waited / 1_000_000,
+                                edt.getStackTrace(), waited);
+                        metrics.addStall(stall);
+                    } else if (stall != null) {
+                        stall.update(waited, false);
+                    }
+                }
+                long waited = System.nanoTime() - sent;
+                metrics.histogram("edt.heartbeat").record(waited);
+                if (stall != null) {
+                    stall.update(waited, true);
+                }
+                Thread.sleep(period);
+            }
+        } catch (InterruptedException e) {
+            // stop() was called
+        }
+    }
+}
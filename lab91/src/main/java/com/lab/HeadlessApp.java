@@ -0,0 +1,91 @@
+package com.lab;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Entry point for nightly jobs: loads the inventory the system properties describe,
+// runs the commands in order and exits. Nothing reachable from here may touch
+// javax.swing or java.awt, so it starts without AWT and runs without a display.
+//
+//   java -cp lab91.jar com.lab.HeadlessApp import in.csv report export out.csv
+//   java -cp lab91.jar com.lab.App --headless report
+public class HeadlessApp {
+    private static final String USAGE = "Usage: HeadlessApp (report | import <file.csv> | export <file.csv>)...";
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    // Returns the exit status: 0 on success, 1 if a command failed, 2 for bad arguments
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        List<String[]> commands = parse(args);
+        if (commands == null) {
+            err.println(USAGE);
+            return 2;
+        }
+        ItemModel model = null;
+        try {
+            model = ModelFactory.create();
+            Path journal = ModelFactory.journalToLoad();
+            if (journal != null) {
+                ModelFactory.loadJournal(journal, model);
+            }
+            for (String[] command : commands) {
+                switch (command[0]) {
+                    case "report" -> report(model, out);
+                    case "import" -> out.println("Imported " + InventoryCsv.importInto(Path.of(command[1]), model,
+                            Runtime.getRuntime().availableProcessors()));
+                    case "export" -> out.println("Exported " + InventoryCsv.write(Path.of(command[1]), model));
+                    default -> throw new IllegalStateException(command[0]);
+                }
+            }
+            return 0;
+        } catch (IOException | UncheckedIOException e) {
+            err.println("Failed: " + e.getMessage());
+            return 1;
+        } finally {
+            if (model != null) {
+                model.close();
+            }
+        }
+    }
+
+    // The numbers ReportView shows, from one snapshot
+    private static void report(ItemModel model, PrintStream out) {
+        InventoryEvents.Report event = new InventoryEvents.Report();
+        event.begin();
+        try (ItemModel.Snapshot snapshot = model.snapshot()) {
+            out.println("Items: " + snapshot.size());
+            out.println("Total Amount: " + snapshot.getTotalAmount());
+            out.println("Total Price: " + Money.format(snapshot.getTotalCents()));
+            event.record(snapshot.size(), snapshot.getVersion());
+        }
+    }
+
+    // Checked up front, so a typo fails before a long import rather than after it
+    private static List<String[]> parse(String[] args) {
+        if (args.length == 0) {
+            return null;
+        }
+        List<String[]> commands = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "report" -> commands.add(new String[] { "report" });
+                case "import", "export" -> {
+                    if (i + 1 == args.length) {
+                        return null;
+                    }
+                    commands.add(new String[] { args[i], args[++i] });
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+        return commands;
+    }
+}
@@ -0,0 +1,689 @@
+package com.lab;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// Streaming CSV import/export: name,description,price,amount per line, with an
+// optional header line and RFC 4180 quoting. Files are read through FileChannels
+// into fixed buffers and parsed in place; nothing ever holds the whole file.
+//
+// Import splits the file into one part per thread and parses the parts in
+// parallel. Part boundaries have to fall between rows, and a quoted field may
+// contain line breaks, so every part first counts its quote characters; the
+// running parity then tells whether a newline near a boundary is inside quotes.
+// Parsed rows are handed on in file order, in blocks, as soon as they are ready.
+// Each part may run at most QUEUED_BLOCKS blocks ahead of the consumer before its
+// parser waits, so the parsed rows held at once stay bounded by the thread count,
+// not by the file.
+public class InventoryCsv {
+    public static final String HEADER = "name,description,price,amount";
+
+    // Rows per block handed to the consumer, and so per model batch on import
+    static final int BLOCK_SIZE = 16_384;
+    // Blocks a part may have parsed and not yet handed on
+    private static final int QUEUED_BLOCKS = 2;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final byte[] HEADER_BYTES = HEADER.getBytes(StandardCharsets.US_ASCII);
+    private static final Object END = new Object();
+    // Every power of ten up to 10^22 is exact as a double
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    // Parsed rows in column form, in file order
+    public static class Rows {
+        final String[] names = new String[BLOCK_SIZE];
+        final String[] descriptions = new String[BLOCK_SIZE];
+        final double[] prices = new double[BLOCK_SIZE];
+        final int[] amounts = new int[BLOCK_SIZE];
+        int size;
+
+        public int size() { return size; }
+
+        // Adds the whole block to the model as one batch
+        public void applyTo(ItemModel model) {
+            ItemModel.Batch batch = model.beginBatch();
+            for (int i = 0; i < size; i++) {
+                batch.add(new Item(names[i], descriptions[i], prices[i], amounts[i]));
+            }
+            batch.commit();
+        }
+
+        private boolean full() { return size == BLOCK_SIZE; }
+    }
+
+    public static class Stats {
+        private final long rows;
+        private final long bytes;
+        private final long nanos;
+
+        Stats(long rows, long bytes, long nanos) {
+            this.rows = rows;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        public long getRows() { return rows; }
+        public long getBytes() { return bytes; }
+        public long getNanos() { return nanos; }
+
+        public double rowsPerSecond() { return nanos == 0 ? 0 : rows * 1e9 / nanos; }
+
+        @Override
+        public String toString() {
+            return String.format("%,d rows, %,d bytes in %.1f ms (%,.0f rows/s)", rows, bytes, nanos / 1e6,
+                    rowsPerSecond());
+        }
+    }
+
+    public static Stats importInto(Path file, ItemModel model, int threads) throws IOException {
+        return read(file, threads, rows -> rows.applyTo(model));
+    }
+
+    // Parses the file on up to `threads` threads; sink gets every block, in file
+    // order, on the calling thread
+    public static Stats read(Path file, int threads, Consumer<Rows> sink) throws IOException {
+        InventoryEvents.CsvTransfer event = new InventoryEvents.CsvTransfer();
+        event.begin();
+        Stats stats = parse(file, threads, sink);
+        event.record("import", file, stats);
+        return stats;
+    }
+
+    private static Stats parse(Path file, int threads, Consumer<Rows> sink) throws IOException {
+        long start = System.nanoTime();
+        long rows = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long first = skipHeader(channel);
+            int parts = (int) Math.max(1, Math.min(threads, (size - first) / BUFFER_SIZE));
+            if (parts == 1) {
+                Parser parser = new Parser(channel, first, size);
+                for (Rows block = parser.next(); block != null; block = parser.next()) {
+                    rows += block.size;
+                    sink.accept(block);
+                }
+                return new Stats(rows, size, System.nanoTime() - start);
+            }
+
+            ExecutorService pool = Executors.newFixedThreadPool(parts, r -> {
+                Thread thread = new Thread(r, "csv-parser");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                long[] bounds = partBounds(channel, pool, first, size, parts);
+                List<BlockingQueue<Object>> queues = new ArrayList<>();
+                for (int part = 0; part < parts; part++) {
+                    BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUED_BLOCKS);
+                    queues.add(queue);
+                    long from = bounds[part];
+                    long to = bounds[part + 1];
+                    pool.execute(() -> {
+                        try {
+                            Parser parser = new Parser(channel, from, to);
+                            for (Rows block = parser.next(); block != null; block = parser.next()) {
+                                queue.put(block);
+                            }
+                            queue.put(END);
+                        } catch (InterruptedException e) {
+                            // The import ended early and shut the pool down; nobody reads the queue now
+                            Thread.currentThread().interrupt();
+                        } catch (Throwable e) {
+                            try {
+                                queue.put(e);
+                            } catch (InterruptedException stopped) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    });
+                }
+                // Later parts parse a few blocks ahead while the earlier ones are being consumed
+                for (BlockingQueue<Object> queue : queues) {
+                    for (Object next = queue.take(); next != END; next = queue.take()) {
+                        if (next instanceof IOException e) {
+                            throw e;
+                        }
+                        if (next instanceof Throwable e) {
+                            throw new IOException(e);
+                        }
+                        Rows block = (Rows) next;
+                        rows += block.size;
+                        sink.accept(block);
+                    }
+                }
+                return new Stats(rows, size, System.nanoTime() - start);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while importing " + file, e);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    // Writes to a temporary file next to the target and moves it into place,
+    // so a failed export never leaves half a file behind. Exports a snapshot, so
+    // edits made meanwhile neither block nor tear the file.
+    public static Stats write(Path file, ItemModel model) throws IOException {
+        InventoryEvents.CsvTransfer event = new InventoryEvents.CsvTransfer();
+        event.begin();
+        Stats stats = writeSnapshot(file, model);
+        event.record("export", file, stats);
+        return stats;
+    }
+
+    private static Stats writeSnapshot(Path file, ItemModel model) throws IOException {
+        long start = System.nanoTime();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        int size;
+        long bytes;
+        try (ItemModel.Snapshot snapshot = model.snapshot();
+                FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer writer = new Writer(channel);
+            writer.ascii(HEADER);
+            writer.newline();
+            size = snapshot.size();
+            for (int slot = 0; slot < size; slot++) {
+                // One lock round trip per row rather than per field
+                Item item = snapshot.getItem(slot);
+                writer.text(item.getName());
+                writer.comma();
+                writer.text(item.getDescription());
+                writer.comma();
+                writer.ascii(Double.toString(item.getPrice()));
+                writer.comma();
+                writer.number(item.getAmount());
+                writer.newline();
+            }
+            writer.flush();
+            bytes = channel.position();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Stats(size, bytes, System.nanoTime() - start);
+    }
+
+    private static long skipHeader(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES.length + 2);
+        channel.read(buffer, 0);
+        byte[] head = buffer.array();
+        int n = buffer.position();
+        if (n < HEADER_BYTES.length || !Arrays.equals(head, 0, HEADER_BYTES.length, HEADER_BYTES, 0,
+                HEADER_BYTES.length)) {
+            return 0;
+        }
+        int end = HEADER_BYTES.length;
+        if (end < n && head[end] == '\r') {
+            end++;
+        }
+        return end < n && head[end] == '\n' ? end + 1 : end;
+    }
+
+    // Splits [first, size) into parts that each start at the beginning of a row
+    private static long[] partBounds(FileChannel channel, ExecutorService pool, long first, long size, int parts)
+            throws IOException, InterruptedException {
+        long[] nominal = new long[parts + 1];
+        for (int part = 0; part <= parts; part++) {
+            nominal[part] = first + (size - first) * part / parts;
+        }
+        List<Future<Long>> quoteCounts = new ArrayList<>();
+        for (int part = 0; part < parts; part++) {
+            long from = nominal[part];
+            long to = nominal[part + 1];
+            quoteCounts.add(pool.submit(() -> countQuotes(channel, from, to)));
+        }
+        long[] bounds = new long[parts + 1];
+        bounds[0] = first;
+        bounds[parts] = size;
+        long quotes = 0;
+        try {
+            for (int part = 1; part < parts; part++) {
+                quotes += quoteCounts.get(part - 1).get();
+                // Escaped quotes come in pairs, so an odd count means we are inside a quoted field
+                long bound = rowStartAfter(channel, nominal[part], size, (quotes & 1) != 0);
+                bounds[part] = Math.max(bound, bounds[part - 1]);
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+        return bounds;
+    }
+
+    private static long countQuotes(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        byte[] bytes = buffer.array();
+        long quotes = 0;
+        for (long position = from; position < to; ) {
+            buffer.clear().limit((int) Math.min(BUFFER_SIZE, to - position));
+            int n = channel.read(buffer, position);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (bytes[i] == '"') {
+                    quotes++;
+                }
+            }
+            position += n;
+        }
+        return quotes;
+    }
+
+    // Offset just past the first line break at or after `from` that is not inside quotes
+    private static long rowStartAfter(FileChannel channel, long from, long size, boolean quoted) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        byte[] bytes = buffer.array();
+        for (long position = from; position < size; ) {
+            buffer.clear();
+            int n = channel.read(buffer, position);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (bytes[i] == '"') {
+                    quoted = !quoted;
+                } else if (bytes[i] == '\n' && !quoted) {
+                    return position + i + 1;
+                }
+            }
+            position += n;
+        }
+        return size;
+    }
+
+    static IOException badRow(long offset, String problem) {
+        return new IOException("Bad CSV row at byte " + offset + ": " + problem);
+    }
+
+    // Parses the rows that start in [from, to); the last one may run past `to`
+    private static class Parser {
+        private final FileChannel channel;
+        private final long to;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private byte[] bytes = buffer.array();
+        // Scratch space for quoted fields with escaped quotes
+        private byte[] unescaped = new byte[256];
+        // File offset of bytes[0], number of valid bytes, and the next unread index
+        private long base;
+        private int limit;
+        private int pos;
+        private boolean eof;
+
+        Parser(FileChannel channel, long from, long to) {
+            this.channel = channel;
+            this.to = to;
+            this.base = from;
+        }
+
+        // The next block of rows, or null when the part is done
+        Rows next() throws IOException {
+            Rows rows = new Rows();
+            while (!rows.full() && base + pos < to) {
+                int end = rowEnd();
+                if (end == -1) {
+                    if (!fill()) {
+                        end = limit; // last row without a line break
+                    } else {
+                        continue;
+                    }
+                }
+                parseRow(rows, end);
+                pos = end < limit ? end + 1 : end;
+            }
+            return rows.size == 0 ? null : rows;
+        }
+
+        // Index of the line break ending the row at pos, or -1 if it is not buffered yet
+        private int rowEnd() {
+            boolean quoted = false;
+            for (int i = pos; i < limit; i++) {
+                byte b = bytes[i];
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // Moves the unparsed tail to the front and reads more; false at end of file
+        private boolean fill() throws IOException {
+            if (eof) {
+                return false;
+            }
+            int remaining = limit - pos;
+            if (remaining == bytes.length) {
+                // A single row bigger than the buffer
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                buffer = ByteBuffer.wrap(bytes);
+            } else {
+                System.arraycopy(bytes, pos, bytes, 0, remaining);
+            }
+            base += pos;
+            pos = 0;
+            limit = remaining;
+            buffer.clear().position(limit);
+            int n = channel.read(buffer, base + limit);
+            if (n <= 0) {
+                eof = true;
+                return false;
+            }
+            limit += n;
+            return true;
+        }
+
+        private void parseRow(Rows rows, int end) throws IOException {
+            if (end > pos && bytes[end - 1] == '\r') {
+                end--;
+            }
+            if (end == pos) {
+                return; // blank line
+            }
+            long offset = base + pos;
+            int p = pos;
+            int i = rows.size;
+
+            String name = field(p, end, offset);
+            p = fieldEnd;
+            if (p >= end) {
+                throw badRow(offset, "expected 4 fields");
+            }
+            String description = field(p + 1, end, offset);
+            p = fieldEnd;
+            if (p >= end) {
+                throw badRow(offset, "expected 4 fields");
+            }
+            int priceEnd = indexOf(',', p + 1, end);
+            if (priceEnd == end) {
+                throw badRow(offset, "expected 4 fields");
+            }
+            double price = parsePrice(bytes, p + 1, priceEnd);
+            int amount = parseAmount(bytes, priceEnd + 1, end);
+
+            if (name.isBlank() || !(price >= 0) || amount < 0 || !Money.fits(price, amount)) {
+                throw badRow(offset, "invalid item details");
+            }
+            rows.names[i] = name;
+            rows.descriptions[i] = description;
+            rows.prices[i] = price;
+            rows.amounts[i] = amount;
+            rows.size++;
+        }
+
+        // Set by field(): index of the separator (or row end) after the field
+        private int fieldEnd;
+
+        private String field(int from, int end, long offset) throws IOException {
+            if (from < end && bytes[from] == '"') {
+                int length = 0;
+                int i = from + 1;
+                while (true) {
+                    if (i >= end) {
+                        throw badRow(offset, "unterminated quote");
+                    }
+                    byte b = bytes[i++];
+                    if (b == '"') {
+                        if (i < end && bytes[i] == '"') {
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                    if (length == unescaped.length) {
+                        unescaped = Arrays.copyOf(unescaped, length * 2);
+                    }
+                    unescaped[length++] = b;
+                }
+                if (i < end && bytes[i] != ',') {
+                    throw badRow(offset, "text after closing quote");
+                }
+                fieldEnd = i;
+                return new String(unescaped, 0, length, StandardCharsets.UTF_8);
+            }
+            fieldEnd = indexOf(',', from, end);
+            return new String(bytes, from, fieldEnd - from, StandardCharsets.UTF_8);
+        }
+
+        private int indexOf(char c, int from, int end) {
+            int i = from;
+            while (i < end && bytes[i] != c) {
+                i++;
+            }
+            return i;
+        }
+    }
+
+    // Decimal number straight from the bytes. Up to 18 significant digits and a
+    // power of ten up to 22 convert exactly with one multiply or divide; anything
+    // else is rare enough to go through Double.parseDouble. NaN if malformed.
+    static double parsePrice(byte[] bytes, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significant = 0;
+        int scale = 0;
+        boolean digits = false;
+        boolean exact = true;
+        for (; i < to && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+            digits = true;
+            if (significant < 18) {
+                mantissa = mantissa * 10 + (bytes[i] - '0');
+                if (mantissa != 0) {
+                    significant++;
+                }
+            } else {
+                exact = false;
+            }
+        }
+        if (i < to && bytes[i] == '.') {
+            for (i++; i < to && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+                digits = true;
+                if (significant < 18) {
+                    mantissa = mantissa * 10 + (bytes[i] - '0');
+                    if (mantissa != 0) {
+                        significant++;
+                    }
+                    scale--;
+                } else {
+                    exact = false;
+                }
+            }
+        }
+        if (!digits) {
+            return Double.NaN;
+        }
+        if (i < to && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+                negativeExponent = bytes[i] == '-';
+                i++;
+            }
+            int exponent = 0;
+            boolean exponentDigits = false;
+            for (; i < to && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+                exponentDigits = true;
+                exponent = Math.min(exponent * 10 + (bytes[i] - '0'), 100_000);
+            }
+            if (!exponentDigits) {
+                return Double.NaN;
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        if (i != to) {
+            return Double.NaN;
+        }
+        if (exact && mantissa < (1L << 53) && Math.abs(scale) < POWERS_OF_TEN.length) {
+            double value = scale >= 0 ? mantissa * POWERS_OF_TEN[scale] : mantissa / POWERS_OF_TEN[-scale];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+    }
+
+    // Non-negative int straight from the bytes; -1 if malformed or out of range
+    static int parseAmount(byte[] bytes, int from, int to) {
+        if (from == to) {
+            return -1;
+        }
+        int i = from;
+        if (bytes[i] == '+') {
+            i++;
+        }
+        if (i == to) {
+            return -1;
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            byte b = bytes[i];
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+            if (value > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return (int) value;
+    }
+
+    // Encodes straight into one buffer that is written out whenever it fills up
+    private static class Writer {
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private byte[] bytes = buffer.array();
+        private int pos;
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void comma() throws IOException {
+            reserve(1);
+            bytes[pos++] = ',';
+        }
+
+        void newline() throws IOException {
+            reserve(1);
+            bytes[pos++] = '\n';
+        }
+
+        void ascii(String s) throws IOException {
+            int length = s.length();
+            reserve(length);
+            for (int i = 0; i < length; i++) {
+                bytes[pos++] = (byte) s.charAt(i);
+            }
+        }
+
+        void number(int value) throws IOException {
+            reserve(11);
+            if (value < 0) {
+                bytes[pos++] = '-';
+                value = -value;
+            }
+            int start = pos;
+            do {
+                bytes[pos++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+            // Digits came out least significant first
+            for (int i = start, j = pos - 1; i < j; i++, j--) {
+                byte b = bytes[i];
+                bytes[i] = bytes[j];
+                bytes[j] = b;
+            }
+        }
+
+        // UTF-8, quoted only when the text contains a separator, quote or line break.
+        // A missing description is written as an empty field.
+        void text(String s) throws IOException {
+            if (s == null) {
+                return;
+            }
+            int length = s.length();
+            boolean quote = false;
+            for (int i = 0; i < length && !quote; i++) {
+                char c = s.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            // Worst case: every char a doubled quote or a 3-byte sequence, plus the quotes
+            reserve(length * 3 + 2);
+            if (quote) {
+                bytes[pos++] = '"';
+            }
+            for (int i = 0; i < length; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    if (c == '"') {
+                        bytes[pos++] = '"';
+                    }
+                    bytes[pos++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[pos++] = (byte) (0xC0 | c >> 6);
+                    bytes[pos++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    bytes[pos++] = (byte) (0xF0 | cp >> 18);
+                    bytes[pos++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                    bytes[pos++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                    bytes[pos++] = (byte) (0x80 | cp & 0x3F);
+                } else if (Character.isSurrogate(c)) {
+                    bytes[pos++] = '?'; // unpaired surrogate, same as String.getBytes
+                } else {
+                    bytes[pos++] = (byte) (0xE0 | c >> 12);
+                    bytes[pos++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    bytes[pos++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+            if (quote) {
+                bytes[pos++] = '"';
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.clear().limit(pos);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            pos = 0;
+        }
+
+        private void reserve(int n) throws IOException {
+            if (pos + n > bytes.length) {
+                flush();
+                if (n > bytes.length) {
+                    bytes = new byte[Integer.highestOneBit(n) << 1];
+                    buffer = ByteBuffer.wrap(bytes);
+                }
+            }
+        }
+    }
+}
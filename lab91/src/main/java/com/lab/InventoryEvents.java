@@ -0,0 +1,124 @@
+package com.lab;
+
+import java.nio.file.Path;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Flight Recorder events for the inventory, so a GC pause or a parked writer in a
+// recording can be lined up with the action that caused it. inventory.jfc turns
+// them on. Callers create the event, call begin(), and hand it the details at the
+// end through record(), which does nothing unless shouldCommit() says the event is
+// enabled and over its threshold; with recording off that is one branch, and the
+// JIT removes the allocation.
+public final class InventoryEvents {
+    private InventoryEvents() {}
+
+    @Name("com.lab.ModelMutation")
+    @Label("Model Mutation")
+    @Category({ "Inventory", "Model" })
+    @Description("An add, restore, update, delete or batch applied to the ItemModel, including the wait for its lock")
+    public static class Mutation extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Item ID")
+        @Description("The item changed, or 0 for a batch")
+        long itemId;
+
+        @Label("Items")
+        @Description("How many items the mutation changed")
+        int items;
+
+        @Label("Version")
+        @Description("The model version after the mutation")
+        long version;
+
+        void record(String operation, long itemId, int items, long version) {
+            if (shouldCommit()) {
+                this.operation = operation;
+                this.itemId = itemId;
+                this.items = items;
+                this.version = version;
+                commit();
+            }
+        }
+    }
+
+    @Name("com.lab.TableRefresh")
+    @Label("Table Refresh")
+    @Category({ "Inventory", "View" })
+    @Description("The dashboard table moving on to a new model snapshot")
+    public static class TableRefresh extends Event {
+        @Label("Rows Before")
+        int rowsBefore;
+
+        @Label("Rows After")
+        int rowsAfter;
+
+        @Label("Version")
+        long version;
+
+        void record(int rowsBefore, int rowsAfter, long version) {
+            if (shouldCommit()) {
+                this.rowsBefore = rowsBefore;
+                this.rowsAfter = rowsAfter;
+                this.version = version;
+                commit();
+            }
+        }
+    }
+
+    @Name("com.lab.Report")
+    @Label("Report")
+    @Category({ "Inventory", "View" })
+    @Description("A report: the breakdowns behind ReportView, or the headless report's totals")
+    public static class Report extends Event {
+        @Label("Items")
+        int items;
+
+        @Label("Version")
+        long version;
+
+        void record(int items, long version) {
+            if (shouldCommit()) {
+                this.items = items;
+                this.version = version;
+                commit();
+            }
+        }
+    }
+
+    @Name("com.lab.CsvTransfer")
+    @Label("CSV Transfer")
+    @Category({ "Inventory", "I/O" })
+    @Description("A CSV import or export")
+    public static class CsvTransfer extends Event {
+        @Label("Direction")
+        String direction;
+
+        @Label("File")
+        String file;
+
+        @Label("Rows")
+        long rows;
+
+        @Label("Size")
+        @DataAmount
+        long bytes;
+
+        void record(String direction, Path file, InventoryCsv.Stats stats) {
+            if (shouldCommit()) {
+                this.direction = direction;
+                this.file = file.toString();
+                this.rows = stats.getRows();
+                this.bytes = stats.getBytes();
+                commit();
+            }
+        }
+    }
+}
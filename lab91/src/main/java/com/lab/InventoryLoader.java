@@ -0,0 +1,78 @@
+package com.lab;
+
+import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+// Reads a journaled inventory off the EDT and applies it to the model in chunks,
+// one batch each, so the frame is already on screen while a large inventory is
+// still loading. The model is thread-safe, so the chunks are applied right here on
+// the worker thread; the EDT only hears that there is progress to show.
+public class InventoryLoader extends SwingWorker<Void, Integer> {
+    private static final System.Logger LOG = System.getLogger(InventoryLoader.class.getName());
+    private static final int CHUNK_SIZE = 10_000;
+
+    private final Path directory;
+    private final ItemModel model;
+    private final MainController controller;
+    private final boolean fresh;
+    // Only touched by the worker thread
+    private List<Journal.Entry> chunk = new ArrayList<>(CHUNK_SIZE);
+
+    public InventoryLoader(Path directory, ItemModel model, MainController controller) {
+        this.directory = directory;
+        this.model = model;
+        this.controller = controller;
+        this.fresh = !Files.exists(directory);
+    }
+
+    @Override
+    protected Void doInBackground() throws Exception {
+        Journal.recover(directory, entry -> {
+            chunk.add(entry);
+            if (chunk.size() == CHUNK_SIZE) {
+                apply();
+            }
+        });
+        apply();
+        return null;
+    }
+
+    private void apply() {
+        Journal.applyAll(chunk, model);
+        publish(chunk.size());
+        chunk.clear();
+    }
+
+    // The rows themselves reach the table through modelChanged
+    @Override
+    protected void process(List<Integer> chunks) {
+        controller.itemsLoaded(false);
+    }
+
+    @Override
+    protected void done() {
+        try {
+            get();
+            Journal.attach(directory, model);
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            LOG.log(System.Logger.Level.ERROR, "Could not load the inventory from " + directory, cause);
+            // Without a journal no edit would be saved, so whatever was loaded stays read-only
+            model.refuseEdits(cause instanceof IOException io ? io : new IOException(cause));
+            JOptionPane.showMessageDialog(null, "Could not load the inventory, so it cannot be edited: "
+                    + cause.getMessage(), "Inventory not loaded", JOptionPane.ERROR_MESSAGE);
+            controller.itemsLoaded(true);
+            return;
+        }
+        if (fresh) {
+            model.addSampleItems();
+        }
+        controller.itemsLoaded(true);
+    }
+}
@@ -1,17 +1,36 @@
 package com.lab;
 
 public class Item {
+    // Assigned by ItemModel when the item is added; 0 means "not in a model yet"
+    private long id;
     private String name;
     private String description;
+    private long priceCents;
+    private int amount;
 
-    public Item(String name, String description) {
+    // The price is rounded to whole cents, see Money
+    public Item(String name, String description, double price, int amount) {
         this.name = name;
         this.description = description;
+        this.priceCents = Money.toCents(price);
+        this.amount = amount;
     }
 
+    public long getId() { return id; }
+    void setId(long id) { this.id = id; }
+
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
 
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
+
+    public double getPrice() { return Money.toPrice(getPriceCents()); }
+    public void setPrice(double price) { setPriceCents(Money.toCents(price)); }
+
+    public long getPriceCents() { return priceCents; }
+    public void setPriceCents(long priceCents) { this.priceCents = priceCents; }
+
+    public int getAmount() { return amount; }
+    public void setAmount(int amount) { this.amount = amount; }
 }
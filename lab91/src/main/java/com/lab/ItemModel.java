@@ -1,18 +1,1072 @@
 package com.lab;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
-public class ItemModel {
-    private List<Item> items = new ArrayList<>();
+// Safe to use from any thread. Writers take the write lock for the few microseconds
+// a mutation needs; the live getters take the read lock per call. Code that needs
+// several reads to agree (painting a table, a report, an export) takes a Snapshot.
+// The search and sort indexes are built from a snapshot too, outside the lock.
+public class ItemModel implements AutoCloseable {
+    // -Dinventory.checkTotals=true recounts after every mutation and fails fast on drift
+    private static final boolean CHECK_TOTALS = Boolean.getBoolean("inventory.checkTotals");
+    // Rows an index build reads per read lock
+    static final int SCAN_ROWS = 4096;
+
+    // Rows are packed densely by slot in the store; slotById maps a stable ID to its current slot
+    private ItemStore store;
+    // Built on first use when the store was opened with existing rows
+    private volatile LongIntHashMap slotById;
+
+    // ID counter and running aggregates for the report, kept in step with every add/update/delete
+    private ModelState state;
+
+    // Optional write-ahead journal that every mutation is appended to
+    private Journal journal;
+    // Set when the journal this model should have could not be opened
+    private volatile IOException journalMissing;
+
+    // Built by the first search, then kept up to date by every mutation
+    private volatile SearchIndex searchIndex;
+
+    // Sorted views, each built on first use and then kept up to date like the search index
+    private OrderIndex[] orders = new OrderIndex[ItemOrder.values().length];
+    // One index build at a time; held while it reads its snapshot, not the model lock
+    private final Object indexBuild = new Object();
+    // IDs written during the index build in progress, if any, replayed onto it before
+    // it is published; guarded by the lock
+    private LongIntHashMap writtenDuringBuild;
+
+    private volatile long version;
+
+    // Not reentrant: nothing that holds it may call a public method that takes it again
+    private final StampedLock lock = new StampedLock();
+    // Collects the pre-images open snapshots need; null while no snapshot is open
+    private Overlay overlay;
+    private int openSnapshots;
+
+    private final List<ItemModelListener> listeners = new CopyOnWriteArrayList<>();
+    // Changes made under the current write lock; mutated() turns them into an event
+    private ItemModelEvent.Builder changes = new ItemModelEvent.Builder();
+    // Queued under the write lock, so in version order, and delivered after it is released
+    private final Queue<ItemModelEvent> events = new ConcurrentLinkedQueue<>();
 
     public ItemModel() {
-        // Add some dummy data so the students see something immediately
-        items.add(new Item("Laptop", "Developer machine"));
-        items.add(new Item("Coffee", "Fuel for the developer"));
+        this(new ListItemStore());
+        addSampleItems();
+    }
+
+    public ItemModel(ItemStore store) {
+        this.store = store;
+        state = store.restoreState();
+        if (state == null) {
+            state = recount();
+        }
+        if (store.size() == 0) {
+            slotById = new LongIntHashMap();
+        }
+    }
+
+    public void setJournal(Journal journal) { this.journal = journal; }
+
+    // For a model whose journal could not be opened: what it holds stays readable, but
+    // every edit is refused like after a journal failure, since none would be saved
+    public void refuseEdits(IOException cause) { journalMissing = cause; }
+
+    // Add some dummy data so the students see something immediately
+    public void addSampleItems() {
+        addItem(new Item("Laptop", "Developer machine", 1000.0, 1));
+        addItem(new Item("Coffee", "Fuel for the developer", 10.0, 3));
+    }
+
+    // Read-only view of detached copies: mutations must go through the model so the
+    // totals and indexes stay correct
+    public List<Item> getItems() {
+        return new AbstractList<Item>() {
+            @Override
+            public Item get(int index) { return getItemAt(index); }
+
+            @Override
+            public int size() { return ItemModel.this.size(); }
+        };
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return store.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // A detached copy; later edits do not show through it
+    public Item getItemAt(int slot) {
+        long stamp = lock.readLock();
+        try {
+            return copyOf(slot);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long getId(int slot) {
+        long stamp = lock.readLock();
+        try {
+            return store.getId(slot);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public String getName(int slot) {
+        long stamp = lock.readLock();
+        try {
+            return store.getName(slot);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public String getDescription(int slot) {
+        long stamp = lock.readLock();
+        try {
+            return store.getDescription(slot);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public double getPrice(int slot) {
+        long stamp = lock.readLock();
+        try {
+            return store.getPrice(slot);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int getAmount(int slot) {
+        long stamp = lock.readLock();
+        try {
+            return store.getAmount(slot);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // A detached copy of the item, or null if no such item exists
+    public Item getItem(long id) {
+        ensureIndex();
+        long stamp = lock.readLock();
+        try {
+            int slot = slotById.get(id);
+            return slot == -1 ? null : copyOf(slot);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Current slot (table row) of the item, or -1 if no such item exists
+    public int slotOf(long id) {
+        ensureIndex();
+        long stamp = lock.readLock();
+        try {
+            return slotById.get(id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // IDs of the items whose name or description matches every word of the query, or
+    // null for a blank query. Runs under the read lock, so it is fine off the EDT.
+    public long[] search(String query) {
+        if (query.isBlank()) {
+            return null;
+        }
+        if (searchIndex == null) {
+            synchronized (indexBuild) {
+                if (searchIndex == null) {
+                    buildIndex(SearchIndex::new, (index, id, slot) -> {
+                        if (slot == -1) {
+                            index.remove(id);
+                        } else {
+                            index.update(id, store.getName(slot), store.getDescription(slot));
+                        }
+                    }, index -> searchIndex = index);
+                }
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return searchIndex.search(query);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long getTotalAmount() {
+        long stamp = lock.readLock();
+        try {
+            return state.totalAmount;
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
-    public List<Item> getItems() { return items; }
+    public double getTotalPrice() {
+        return Money.toPrice(getTotalCents());
+    }
+
+    public long getTotalCents() {
+        long stamp = lock.readLock();
+        try {
+            return state.totalCents;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // The ID the next added item will get
+    public long getNextId() {
+        long stamp = lock.readLock();
+        try {
+            return state.nextId;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Makes sure IDs below nextId are never handed out again
+    public void reserveIds(long nextId) {
+        long stamp = lock.writeLock();
+        try {
+            state.nextId = Math.max(state.nextId, nextId);
+            store.persistState(state);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Assigns the item its ID and returns the slot it was placed in
+    public int addItem(Item item) {
+        InventoryEvents.Mutation event = new InventoryEvents.Mutation();
+        event.begin();
+        long stamp = lock.writeLock();
+        try {
+            checkJournal();
+            item.setId(state.nextId++);
+            int slot = insert(item.getId(), item.getName(), item.getDescription(), item.getPriceCents(),
+                    item.getAmount());
+            mutated();
+            event.record("add", item.getId(), 1, version);
+            return slot;
+        } finally {
+            lock.unlockWrite(stamp);
+            fireEvents();
+        }
+    }
+
+    // Re-inserts an item under the ID it already had (journal recovery, undo)
+    public int restoreItem(long id, String name, String description, double price, int amount) {
+        long priceCents = Money.toCents(price);
+        InventoryEvents.Mutation event = new InventoryEvents.Mutation();
+        event.begin();
+        long stamp = lock.writeLock();
+        try {
+            checkJournal();
+            if (id <= 0 || index().get(id) != -1) {
+                throw new IllegalArgumentException("Cannot restore item " + id);
+            }
+            state.nextId = Math.max(state.nextId, id + 1);
+            int slot = insert(id, name, description, priceCents, amount);
+            mutated();
+            event.record("restore", id, 1, version);
+            return slot;
+        } finally {
+            lock.unlockWrite(stamp);
+            fireEvents();
+        }
+    }
+
+    // Returns the slot of the updated item, or -1 if no such item exists
+    public int updateItem(long id, String name, String description, double price, int amount) {
+        long priceCents = Money.toCents(price);
+        InventoryEvents.Mutation event = new InventoryEvents.Mutation();
+        event.begin();
+        long stamp = lock.writeLock();
+        try {
+            checkJournal();
+            int slot = replace(id, name, description, priceCents, amount);
+            if (slot != -1) {
+                mutated();
+            }
+            event.record("update", id, slot == -1 ? 0 : 1, version);
+            return slot;
+        } finally {
+            lock.unlockWrite(stamp);
+            fireEvents();
+        }
+    }
+
+    // Swap-remove: the last item moves into the freed slot, so nothing is shifted.
+    // Returns the freed slot, or -1 if no such item exists.
+    public int deleteItem(long id) {
+        InventoryEvents.Mutation event = new InventoryEvents.Mutation();
+        event.begin();
+        long stamp = lock.writeLock();
+        try {
+            checkJournal();
+            int slot = index().remove(id);
+            if (slot == -1) {
+                event.record("delete", id, 0, version);
+                return -1;
+            }
+            forget(id, slot);
+            int last = store.size() - 1;
+            if (slot != last) {
+                move(last, slot);
+            }
+            removeLast();
+            mutated();
+            event.record("delete", id, 1, version);
+            return slot;
+        } finally {
+            lock.unlockWrite(stamp);
+            fireEvents();
+        }
+    }
+
+    // Builds the sorted index for `by` if it does not exist yet; O(n log n), so
+    // callers on the EDT should do this from a worker first
+    public void prepareOrder(ItemOrder by) {
+        if (orders[by.ordinal()] != null) {
+            return;
+        }
+        synchronized (indexBuild) {
+            if (orders[by.ordinal()] == null) {
+                buildIndex(snapshot -> new OrderIndex(by, snapshot), (index, id, slot) -> {
+                    if (slot == -1) {
+                        index.remove(id);
+                    } else {
+                        index.update(id, store.getName(slot), store.getPrice(slot), store.getAmount(slot));
+                    }
+                }, index -> orders[by.ordinal()] = index);
+            }
+        }
+    }
+
+    // Builds an index from a snapshot without holding the lock, so the table keeps
+    // painting and writers keep writing; then, under one short write lock, replays
+    // the IDs written since and publishes it. Called holding indexBuild.
+    private <T> void buildIndex(Function<Snapshot, T> build, IndexReplay<T> replay, Consumer<T> publish) {
+        LongIntHashMap written = new LongIntHashMap();
+        Snapshot snapshot;
+        long stamp = lock.writeLock();
+        try {
+            snapshot = openSnapshot();
+            writtenDuringBuild = written;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        T index = null;
+        try (snapshot) {
+            index = build.apply(snapshot);
+        } finally {
+            stamp = lock.writeLock();
+            try {
+                writtenDuringBuild = null;
+                if (index != null) {
+                    for (long id : written.keys()) {
+                        replay.apply(index, id, index().get(id));
+                    }
+                    publish.accept(index);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    // Brings a freshly built index up to date with one ID: its slot now, or -1 if deleted
+    private interface IndexReplay<T> {
+        void apply(T index, long id, int slot);
+    }
+
+    // ID of the item at position `rank` in the order, counted from the end when
+    // descending, or 0 past the end
+    public long idAt(ItemOrder by, int rank, boolean descending) {
+        prepareOrder(by);
+        long stamp = lock.readLock();
+        try {
+            OrderIndex order = orders[by.ordinal()];
+            int size = order.size();
+            if (rank >= size) {
+                return 0;
+            }
+            return order.idAt(descending ? size - 1 - rank : rank);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Position of the item in the order, or -1 if no such item exists
+    public int rankOf(ItemOrder by, long id) {
+        prepareOrder(by);
+        long stamp = lock.readLock();
+        try {
+            return orders[by.ordinal()].rankOf(id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Bumped once per mutation, and once per committed batch
+    public long getVersion() { return version; }
+
+    // Every later mutation and batch is reported to the listener as one event
+    public void addListener(ItemModelListener listener) { listeners.add(listener); }
+
+    public void removeListener(ItemModelListener listener) { listeners.remove(listener); }
+
+    // Collects adds, updates and deletes and applies them together on commit()
+    public Batch beginBatch() { return new Batch(); }
+
+    public class Batch {
+        // Adds, restores and updates in call order, each carrying its target ID on a detached Item
+        private List<Item> changes = new ArrayList<>();
+        private BitSet adds = new BitSet();
+        private LongIntHashMap deletes = new LongIntHashMap();
+        private boolean committed;
+
+        // Assigns the item its ID right away so it can be referred to before commit
+        public Batch add(Item item) {
+            long stamp = lock.writeLock();
+            try {
+                item.setId(state.nextId++);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            adds.set(changes.size());
+            changes.add(item);
+            return this;
+        }
+
+        // Re-inserts an item under the ID it had (undo); skipped if the ID is in use
+        public Batch restore(long id, String name, String description, double price, int amount) {
+            if (id <= 0) {
+                throw new IllegalArgumentException("Cannot restore item " + id);
+            }
+            Item item = new Item(name, description, price, amount);
+            item.setId(id);
+            adds.set(changes.size());
+            changes.add(item);
+            return this;
+        }
+
+        public Batch update(long id, String name, String description, double price, int amount) {
+            Item item = new Item(name, description, price, amount);
+            item.setId(id);
+            changes.add(item);
+            return this;
+        }
+
+        // Deletes run after the adds and updates, in a single pass over the store
+        public Batch delete(long id) {
+            deletes.put(id, 1);
+            return this;
+        }
+
+        // Applies everything under one version bump; returns how many changes took effect.
+        // If the totals would overflow it throws ArithmeticException and applies none.
+        public int commit() {
+            if (committed) {
+                throw new IllegalStateException("Batch already committed");
+            }
+            committed = true;
+            InventoryEvents.Mutation event = new InventoryEvents.Mutation();
+            event.begin();
+            long stamp = lock.writeLock();
+            try {
+                checkJournal();
+                int applied = apply();
+                event.record("batch", 0, applied, version);
+                return applied;
+            } finally {
+                lock.unlockWrite(stamp);
+                fireEvents();
+            }
+        }
+
+        // All or nothing: every change is checked against the price total first
+        private int apply() {
+            checkOverflow();
+            int applied = 0;
+            try {
+                for (int i = 0; i < changes.size(); i++) {
+                    Item item = changes.get(i);
+                    if (adds.get(i)) {
+                        if (index().get(item.getId()) == -1) {
+                            insert(item.getId(), item.getName(), item.getDescription(), item.getPriceCents(),
+                                    item.getAmount());
+                            state.nextId = Math.max(state.nextId, item.getId() + 1);
+                            applied++;
+                        }
+                    } else if (replace(item.getId(), item.getName(), item.getDescription(),
+                            item.getPriceCents(), item.getAmount()) != -1) {
+                        applied++;
+                    }
+                }
+                applied += deleteAll(deletes);
+            } finally {
+                if (applied > 0) {
+                    mutated();
+                }
+            }
+            return applied;
+        }
+
+        // Plays the batch through on the price total alone, in the order apply() makes
+        // the changes, and throws ArithmeticException before anything is touched if it
+        // would overflow. Once this passes, apply() cannot fail on the totals.
+        private void checkOverflow() {
+            long total = state.totalCents;
+            // The value of each row the batch has touched so far
+            Map<Long, Long> values = new HashMap<>();
+            for (int i = 0; i < changes.size(); i++) {
+                Item item = changes.get(i);
+                Long current = valueOf(values, item.getId());
+                long value = Money.value(item.getPriceCents(), item.getAmount());
+                if (adds.get(i) ? current == null : current != null) {
+                    total = Math.addExact(total, Math.subtractExact(value, current == null ? 0 : current));
+                    values.put(item.getId(), value);
+                }
+            }
+            for (long id : deletes.keys()) {
+                Long current = valueOf(values, id);
+                if (current != null) {
+                    total = Math.subtractExact(total, current);
+                }
+            }
+        }
+
+        // Null if the row exists neither in the store nor in the batch so far
+        private Long valueOf(Map<Long, Long> values, long id) {
+            Long value = values.get(id);
+            if (value != null) {
+                return value;
+            }
+            int slot = index().get(id);
+            return slot == -1 ? null : Money.value(store.getPriceCents(slot), store.getAmount(slot));
+        }
+    }
 
-    public void deleteItem(Item item) { items.remove(item); }
+    // A full pass over the price and amount columns, with the fastest kernel this JVM
+    // can run; the running totals need none, but min and max price do
+    public ColumnTotals getColumnTotals() {
+        long stamp = lock.readLock();
+        try {
+            ColumnTotals totals = new ColumnTotals();
+            store.accumulateTotals(TotalsKernel.BEST, totals);
+            return totals;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Full recount of the running totals; throws if they have drifted
+    public void verifyTotals() {
+        long stamp = lock.readLock();
+        try {
+            checkTotals();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Flushes the journal and the store; persistent stores are marked cleanly closed
+    @Override
+    public void close() {
+        long stamp = lock.writeLock();
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+            store.close();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // An immutable view of the model as it is now. Writers carry on meanwhile; each
+    // write first saves what it overwrites for the open snapshots. Close it when done,
+    // or every later write keeps paying for it.
+    public Snapshot snapshot() {
+        long stamp = lock.writeLock();
+        try {
+            return openSnapshot();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Called holding the write lock
+    private Snapshot openSnapshot() {
+        // Snapshots taken with no write in between share an overlay
+        if (overlay == null || overlay.version != version) {
+            Overlay next = new Overlay(version);
+            if (overlay != null) {
+                overlay.next = next;
+            }
+            overlay = next;
+        }
+        openSnapshots++;
+        return new Snapshot(overlay, store.size(), state.totalAmount, state.totalCents);
+    }
+
+    // Pre-images of the slots overwritten since `version`, before the next snapshot was
+    // taken. A snapshot looks in its own overlay, then in every later one, and only
+    // then in the store: a slot that no overlay mentions has not changed since.
+    private static class Overlay {
+        final long version;
+        final Map<Integer, Item> rows = new HashMap<>();
+        Overlay next;
+
+        Overlay(long version) {
+            this.version = version;
+        }
+    }
+
+    public class Snapshot implements AutoCloseable {
+        private final Overlay overlay;
+        private final int size;
+        private final long totalAmount;
+        private final long totalCents;
+        private boolean closed;
+
+        private Snapshot(Overlay overlay, int size, long totalAmount, long totalCents) {
+            this.overlay = overlay;
+            this.size = size;
+            this.totalAmount = totalAmount;
+            this.totalCents = totalCents;
+        }
+
+        public long getVersion() { return overlay.version; }
+
+        public int size() { return size; }
+
+        public long getTotalAmount() { return totalAmount; }
+
+        public long getTotalCents() { return totalCents; }
+
+        public double getTotalPrice() { return Money.toPrice(totalCents); }
+
+        public long getId(int slot) {
+            long stamp = read(slot);
+            try {
+                Item saved = saved(slot);
+                return saved != null ? saved.getId() : store.getId(slot);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        public String getName(int slot) {
+            long stamp = read(slot);
+            try {
+                Item saved = saved(slot);
+                return saved != null ? saved.getName() : store.getName(slot);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        public String getDescription(int slot) {
+            long stamp = read(slot);
+            try {
+                Item saved = saved(slot);
+                return saved != null ? saved.getDescription() : store.getDescription(slot);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        public double getPrice(int slot) {
+            return Money.toPrice(getPriceCents(slot));
+        }
+
+        public long getPriceCents(int slot) {
+            long stamp = read(slot);
+            try {
+                Item saved = saved(slot);
+                return saved != null ? saved.getPriceCents() : store.getPriceCents(slot);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        public int getAmount(int slot) {
+            long stamp = read(slot);
+            try {
+                Item saved = saved(slot);
+                return saved != null ? saved.getAmount() : store.getAmount(slot);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        // A detached copy of the row as it was
+        public Item getItem(int slot) {
+            long stamp = read(slot);
+            try {
+                Item saved = saved(slot);
+                return saved != null ? copy(saved) : copyOf(slot);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        // Visits slots [from, to) in order under one read lock, instead of one per field
+        // read. Writers wait meanwhile, so callers scan in chunks. Several threads
+        // may scan one snapshot at once.
+        public void scan(int from, int to, Consumer<Row> visitor) {
+            Objects.checkFromToIndex(from, to, size);
+            long stamp = lock.readLock();
+            try {
+                if (closed) {
+                    throw new IllegalStateException("Snapshot is closed");
+                }
+                // Usually nothing has been written since, and no slot needs looking up
+                boolean written = false;
+                for (Overlay o = overlay; o != null; o = o.next) {
+                    written |= !o.rows.isEmpty();
+                }
+                Row row = new Row();
+                for (int slot = from; slot < to; slot++) {
+                    row.slot = slot;
+                    row.saved = written ? saved(slot) : null;
+                    visitor.accept(row);
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        // The row scan() is visiting; only valid inside the visitor
+        public class Row {
+            private int slot;
+            private Item saved;
+
+            public int getSlot() { return slot; }
+
+            public long getId() { return saved != null ? saved.getId() : store.getId(slot); }
+
+            public String getName() { return saved != null ? saved.getName() : store.getName(slot); }
+
+            public String getDescription() {
+                return saved != null ? saved.getDescription() : store.getDescription(slot);
+            }
+
+            public double getPrice() { return Money.toPrice(getPriceCents()); }
+
+            public long getPriceCents() { return saved != null ? saved.getPriceCents() : store.getPriceCents(slot); }
+
+            public int getAmount() { return saved != null ? saved.getAmount() : store.getAmount(slot); }
+        }
+
+        @Override
+        public void close() {
+            long stamp = lock.writeLock();
+            try {
+                if (!closed) {
+                    closed = true;
+                    if (--openSnapshots == 0) {
+                        ItemModel.this.overlay = null;
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private long read(int slot) {
+            if (slot < 0 || slot >= size) {
+                throw new IndexOutOfBoundsException("Slot " + slot + " of " + size);
+            }
+            long stamp = lock.readLock();
+            if (closed) {
+                lock.unlockRead(stamp);
+                throw new IllegalStateException("Snapshot is closed");
+            }
+            return stamp;
+        }
+
+        private Item saved(int slot) {
+            for (Overlay o = overlay; o != null; o = o.next) {
+                Item item = o.rows.get(slot);
+                if (item != null) {
+                    return item;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static Item copy(Item item) {
+        Item copy = new Item(item.getName(), item.getDescription(), 0, item.getAmount());
+        copy.setId(item.getId());
+        copy.setPriceCents(item.getPriceCents());
+        return copy;
+    }
+
+    private Item copyOf(int slot) {
+        Item copy = new Item(store.getName(slot), store.getDescription(slot), 0, store.getAmount(slot));
+        copy.setId(store.getId(slot));
+        copy.setPriceCents(store.getPriceCents(slot));
+        return copy;
+    }
+
+    // Called before a slot is overwritten or dropped, while snapshots are open
+    private void preserve(int slot) {
+        if (overlay != null && !overlay.rows.containsKey(slot)) {
+            overlay.rows.put(slot, copyOf(slot));
+        }
+    }
+
+    // Stores may clear the source row, which is always dropped or overwritten next
+    private void move(int from, int to) {
+        preserve(from);
+        preserve(to);
+        store.move(from, to);
+        index().put(store.getId(to), to);
+    }
+
+    private void removeLast() {
+        preserve(store.size() - 1);
+        store.removeLast();
+    }
+
+    // Only ever called without the lock; index() itself assumes the write lock
+    private void ensureIndex() {
+        if (slotById == null) {
+            long stamp = lock.writeLock();
+            try {
+                index();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    // Both sides are exact, so any difference at all is a bug
+    private void checkTotals() {
+        ModelState actual = recount();
+        if (actual.totalAmount != state.totalAmount || actual.totalCents != state.totalCents) {
+            throw new IllegalStateException("Running totals drifted: amount " + state.totalAmount + " vs "
+                    + actual.totalAmount + ", cents " + state.totalCents + " vs " + actual.totalCents);
+        }
+    }
+
+    private LongIntHashMap index() {
+        if (slotById == null) {
+            int size = store.size();
+            LongIntHashMap index = new LongIntHashMap(size);
+            for (int slot = 0; slot < size; slot++) {
+                index.put(store.getId(slot), slot);
+            }
+            slotById = index;
+        }
+        return slotById;
+    }
+
+    private ModelState recount() {
+        ModelState counted = new ModelState();
+        int size = store.size();
+        for (int slot = 0; slot < size; slot++) {
+            counted.nextId = Math.max(counted.nextId, store.getId(slot) + 1);
+        }
+        ColumnTotals totals = new ColumnTotals();
+        store.accumulateTotals(TotalsKernel.BEST, totals);
+        counted.totalAmount = totals.getAmount();
+        counted.totalCents = totals.getValueCents();
+        return counted;
+    }
+
+    // Refuses an edit once the journal has failed to write: it would not be saved
+    private void checkJournal() {
+        IOException missing = journalMissing;
+        if (missing != null) {
+            throw new UncheckedIOException("The inventory could not be loaded, so edits would not be saved: "
+                    + missing.getMessage(), missing);
+        }
+        if (journal != null) {
+            journal.checkWritable();
+        }
+    }
+
+    private int insert(long id, String name, String description, long priceCents, int amount) {
+        // First, so a total that would overflow leaves nothing half done
+        include(priceCents, amount);
+        int slot = store.size();
+        store.add(id, name, description, priceCents, amount);
+        index().put(id, slot);
+        if (writtenDuringBuild != null) {
+            writtenDuringBuild.put(id, 1);
+        }
+        if (searchIndex != null) {
+            searchIndex.add(id, name, description);
+        }
+        for (OrderIndex order : orders) {
+            if (order != null) {
+                order.add(id, name, Money.toPrice(priceCents), amount);
+            }
+        }
+        if (journal != null) {
+            journal.logPut(id, name, description, Money.toPrice(priceCents), amount);
+        }
+        if (!listeners.isEmpty()) {
+            changes.inserted(id);
+        }
+        return slot;
+    }
+
+    private int replace(long id, String name, String description, long priceCents, int amount) {
+        int slot = index().get(id);
+        if (slot == -1) {
+            return -1;
+        }
+        change(store.getPriceCents(slot), store.getAmount(slot), priceCents, amount);
+        preserve(slot);
+        store.set(slot, name, description, priceCents, amount);
+        if (writtenDuringBuild != null) {
+            writtenDuringBuild.put(id, 1);
+        }
+        if (searchIndex != null) {
+            searchIndex.update(id, name, description);
+        }
+        for (OrderIndex order : orders) {
+            if (order != null) {
+                order.update(id, name, Money.toPrice(priceCents), amount);
+            }
+        }
+        if (journal != null) {
+            journal.logPut(id, name, description, Money.toPrice(priceCents), amount);
+        }
+        if (!listeners.isEmpty()) {
+            changes.updated(id);
+        }
+        return slot;
+    }
+
+    // Takes a row that is about to leave the store out of the totals and the journal
+    private void forget(long id, int slot) {
+        exclude(store.getPriceCents(slot), store.getAmount(slot));
+        if (writtenDuringBuild != null) {
+            writtenDuringBuild.put(id, 1);
+        }
+        if (searchIndex != null) {
+            searchIndex.remove(id);
+        }
+        for (OrderIndex order : orders) {
+            if (order != null) {
+                order.remove(id);
+            }
+        }
+        if (journal != null) {
+            journal.logDelete(id);
+        }
+        if (!listeners.isEmpty()) {
+            changes.deleted(id);
+        }
+    }
+
+    // Removes every listed ID with one compaction pass that starts at the lowest
+    // freed slot, instead of one removal per item. Survivors keep their order.
+    private int deleteAll(LongIntHashMap ids) {
+        int size = store.size();
+        BitSet dead = new BitSet(size);
+        long[] keys = ids.keys();
+        for (long id : keys) {
+            int slot = index().remove(id);
+            if (slot != -1) {
+                forget(id, slot);
+                dead.set(slot);
+            }
+        }
+        int removed = dead.cardinality();
+        if (removed == 0) {
+            return 0;
+        }
+        int write = dead.nextSetBit(0);
+        for (int read = write; read < size; read++) {
+            if (!dead.get(read)) {
+                move(read, write);
+                write++;
+            }
+        }
+        for (int i = 0; i < removed; i++) {
+            removeLast();
+        }
+        return removed;
+    }
+
+    // Throws ArithmeticException, and changes nothing, if the total would overflow
+    private void include(long priceCents, int amount) {
+        state.totalCents = Math.addExact(state.totalCents, Money.value(priceCents, amount));
+        state.totalAmount += amount;
+    }
+
+    // Swaps one row's value for another as a single checked delta: adding the new value
+    // before taking out the old could overflow when the net change does not. Throws
+    // ArithmeticException, and changes nothing, if the total would overflow.
+    private void change(long oldPriceCents, int oldAmount, long priceCents, int amount) {
+        long delta = Math.subtractExact(Money.value(priceCents, amount), Money.value(oldPriceCents, oldAmount));
+        state.totalCents = Math.addExact(state.totalCents, delta);
+        state.totalAmount += amount - oldAmount;
+    }
+
+    private void exclude(long priceCents, int amount) {
+        state.totalCents = Math.subtractExact(state.totalCents, Money.value(priceCents, amount));
+        state.totalAmount -= amount;
+    }
+
+    private void mutated() {
+        version++;
+        store.persistState(state);
+        if (CHECK_TOTALS) {
+            checkTotals();
+        }
+        if (!changes.isEmpty()) {
+            events.add(changes.build(version));
+        }
+    }
+
+    // Called by every writer once it has released the lock. One thread at a time
+    // drains the queue, so listeners see events in version order.
+    private void fireEvents() {
+        if (events.isEmpty()) {
+            return;
+        }
+        synchronized (events) {
+            ItemModelEvent event;
+            while ((event = events.poll()) != null) {
+                for (ItemModelListener listener : listeners) {
+                    listener.modelChanged(event);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package com.lab;
+
+import java.util.Arrays;
+
+// What one mutation, one batch, or once coalesced a whole burst of them did to the
+// model, by item ID. An ID appears in at most one of the three lists.
+public class ItemModelEvent {
+    private static final long[] NONE = new long[0];
+
+    private final long version;
+    private final long[] inserted;
+    private final long[] updated;
+    private final long[] deleted;
+
+    public ItemModelEvent(long version, long[] inserted, long[] updated, long[] deleted) {
+        this.version = version;
+        this.inserted = inserted;
+        this.updated = updated;
+        this.deleted = deleted;
+    }
+
+    // Model version after the last change this event covers
+    public long getVersion() { return version; }
+
+    public long[] getInserted() { return inserted; }
+
+    public long[] getUpdated() { return updated; }
+
+    public long[] getDeleted() { return deleted; }
+
+    // How many items the event touches
+    public int size() { return inserted.length + updated.length + deleted.length; }
+
+    @Override
+    public String toString() {
+        return "ItemModelEvent[version " + version + ", inserted " + Arrays.toString(inserted) + ", updated "
+                + Arrays.toString(updated) + ", deleted " + Arrays.toString(deleted) + "]";
+    }
+
+    // Accumulates changes in order and nets them out per ID: an insert followed by
+    // a delete cancels, a delete followed by a re-insert (undo) is an update
+    static class Builder {
+        private static final int INSERTED = 1;
+        private static final int UPDATED = 2;
+        private static final int DELETED = 3;
+
+        private LongIntHashMap changes = new LongIntHashMap();
+
+        boolean isEmpty() { return changes.size() == 0; }
+
+        void inserted(long id) {
+            changes.put(id, changes.get(id) == DELETED ? UPDATED : INSERTED);
+        }
+
+        void updated(long id) {
+            if (changes.get(id) != INSERTED) {
+                changes.put(id, UPDATED);
+            }
+        }
+
+        void deleted(long id) {
+            if (changes.get(id) == INSERTED) {
+                changes.remove(id);
+            } else {
+                changes.put(id, DELETED);
+            }
+        }
+
+        void merge(ItemModelEvent event) {
+            for (long id : event.inserted) {
+                inserted(id);
+            }
+            for (long id : event.updated) {
+                updated(id);
+            }
+            for (long id : event.deleted) {
+                deleted(id);
+            }
+        }
+
+        // Builds the event and starts over
+        ItemModelEvent build(long version) {
+            long[] ids = changes.keys();
+            int[] counts = new int[4];
+            for (long id : ids) {
+                counts[changes.get(id)]++;
+            }
+            long[][] lists = { null, new long[counts[INSERTED]], new long[counts[UPDATED]], new long[counts[DELETED]] };
+            int[] sizes = new int[4];
+            for (long id : ids) {
+                int kind = changes.get(id);
+                lists[kind][sizes[kind]++] = id;
+            }
+            changes = new LongIntHashMap();
+            return new ItemModelEvent(version, nonEmpty(lists[INSERTED]), nonEmpty(lists[UPDATED]),
+                    nonEmpty(lists[DELETED]));
+        }
+
+        private static long[] nonEmpty(long[] ids) {
+            return ids.length == 0 ? NONE : ids;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.lab;
+
+// Told about every committed change to an ItemModel. Called on the writing thread,
+// after the model lock is released, in version order; keep it quick, or wrap it in
+// an EdtEventDispatcher to handle the changes on the EDT.
+public interface ItemModelListener {
+    void modelChanged(ItemModelEvent event);
+}
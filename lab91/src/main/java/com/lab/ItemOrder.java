@@ -0,0 +1,10 @@
+package com.lab;
+
+// The orderings ItemModel can keep sorted indexes for
+public enum ItemOrder {
+    NAME,
+    PRICE,
+    AMOUNT,
+    // price * amount
+    VALUE
+}
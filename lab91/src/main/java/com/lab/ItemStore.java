@@ -0,0 +1,61 @@
+package com.lab;
+
+// Slot-addressed storage behind ItemModel. Slots are dense (0..size-1); IDs,
+// the ID index and the running totals are maintained by the model itself.
+public interface ItemStore extends AutoCloseable {
+    int size();
+
+    long getId(int slot);
+    String getName(int slot);
+    String getDescription(int slot);
+    // Whole cents; see Money
+    long getPriceCents(int slot);
+    int getAmount(int slot);
+
+    default double getPrice(int slot) { return Money.toPrice(getPriceCents(slot)); }
+
+    // An Item backed by (or copied from) the slot; changes must still go through ItemModel
+    Item getItem(int slot);
+
+    void add(long id, String name, String description, long priceCents, int amount);
+    void set(int slot, String name, String description, long priceCents, int amount);
+
+    // Copies the row in slot "from" over slot "to" (used for swap-remove)
+    void move(int from, int to);
+    void removeLast();
+
+    // Runs the kernel over the price and amount columns. This copies them out a
+    // block at a time; stores that keep them in arrays hand those over directly.
+    default void accumulateTotals(TotalsKernel kernel, ColumnTotals into) {
+        int size = size();
+        long[] prices = new long[Math.min(size, 4096)];
+        int[] amounts = new int[prices.length];
+        for (int from = 0; from < size; from += prices.length) {
+            int length = Math.min(prices.length, size - from);
+            for (int i = 0; i < length; i++) {
+                prices[i] = getPriceCents(from + i);
+                amounts[i] = getAmount(from + i);
+            }
+            kernel.accumulate(prices, amounts, length, into);
+        }
+    }
+
+    // Persistent stores return the counters saved by the last persistState, or null
+    // if the model has to recount them from the rows
+    default ModelState restoreState() { return null; }
+
+    // Called after every mutation with the model's updated counters
+    default void persistState(ModelState state) { }
+
+    @Override
+    default void close() { }
+
+    // -Dinventory.storage=list|columnar
+    static ItemStore create(String kind) {
+        return switch (kind) {
+            case "list" -> new ListItemStore();
+            case "columnar" -> new ColumnarItemStore();
+            default -> throw new IllegalArgumentException("Unknown inventory storage: " + kind);
+        };
+    }
+}
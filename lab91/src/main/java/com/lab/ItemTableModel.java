@@ -0,0 +1,212 @@
+package com.lab;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+
+// Reads cells straight from the ItemModel instead of copying every item
+// into a DefaultTableModel, so an edit only has to announce the rows it touched.
+//
+// The slot view paints from a snapshot, so background writers cannot change the
+// row count or a row's cells halfway through a paint; refresh() moves it on, once
+// per frame at most when driven by an EdtEventDispatcher.
+// Sorted and filtered views look their rows up by ID in the live model.
+//
+// Given a RowPageCache, the slot view reads its rows a page at a time through it
+// rather than one cell at a time from the snapshot, and the dashboard reports the
+// viewport so the cache can read ahead of the scroll.
+public class ItemTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = { "Name", "Description", "Price", "Amount", "Value" };
+    private static final Class<?>[] COLUMN_CLASSES = { String.class, String.class, Double.class, Integer.class,
+            Double.class };
+    // The ItemOrder each column sorts by; Description has none
+    private static final ItemOrder[] COLUMN_ORDERS = { ItemOrder.NAME, null, ItemOrder.PRICE, ItemOrder.AMOUNT,
+            ItemOrder.VALUE };
+    // More than a screenful, so every visible row keeps its entry
+    private static final int CACHED_ROWS = 256;
+
+    private ItemModel model;
+    private ItemModel.Snapshot snapshot;
+    // Null reads the slot view straight from the snapshot
+    private final RowPageCache pages;
+    // IDs of the rows shown while a search is active; null shows every item
+    private long[] filter;
+    // Maintained by the model, so switching to it costs nothing; null is slot order
+    private ItemOrder order;
+    private boolean descending;
+
+    // The cells of recently painted rows, direct-mapped by row and tagged with the
+    // version they were read at. A row is painted one cell at a time, and repainted
+    // whole on selection changes and on events about other rows; this way its strings
+    // are decoded and its numbers boxed once per version rather than per paint.
+    private final int[] cachedRows = new int[CACHED_ROWS];
+    private final long[] cachedVersions = new long[CACHED_ROWS];
+    private final Object[][] cachedCells = new Object[CACHED_ROWS][COLUMNS.length];
+
+    public ItemTableModel(ItemModel model) {
+        this(model, null);
+    }
+
+    public ItemTableModel(ItemModel model, RowPageCache pages) {
+        this.model = model;
+        this.pages = pages;
+        this.snapshot = model.snapshot();
+        invalidate();
+    }
+
+    @Override
+    public int getRowCount() { return filter == null ? snapshot.size() : filter.length; }
+
+    @Override
+    public int getColumnCount() { return COLUMNS.length; }
+
+    @Override
+    public String getColumnName(int column) { return COLUMNS[column]; }
+
+    @Override
+    public Class<?> getColumnClass(int column) { return COLUMN_CLASSES[column]; }
+
+    @Override
+    public boolean isCellEditable(int row, int column) { return false; }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Object[] cells = cells(row);
+        return cells == null ? null : cells[column];
+    }
+
+    // Views map through convertRowIndexToModel first; rows are then resolved through
+    // the search results and the sort order, if any
+    public long getItemId(int row) {
+        if (filter != null) {
+            return filter[row];
+        }
+        if (order != null) {
+            return model.idAt(order, row, descending);
+        }
+        if (pages != null) {
+            return pages.page(snapshot, row).getId(row);
+        }
+        return snapshot.getId(row);
+    }
+
+    // The order a column header click sorts by, or null if the column is not sortable
+    public ItemOrder getColumnOrder(int column) { return COLUMN_ORDERS[column]; }
+
+    public ItemOrder getOrder() { return order; }
+
+    public boolean isDescending() { return descending; }
+
+    public boolean isFiltered() { return filter != null; }
+
+    public boolean isPaged() { return pages != null; }
+
+    // Rows [firstRow, lastRow] are in view. Only the slot view is paged; sorted and
+    // filtered views resolve their rows by ID.
+    public void viewportChanged(int firstRow, int lastRow) {
+        if (pages != null && filter == null && order == null && snapshot.size() > 0) {
+            pages.prefetch(snapshot, firstRow, Math.min(lastRow, snapshot.size() - 1));
+        }
+    }
+
+    public void setFilter(long[] ids) {
+        filter = ids;
+        invalidate();
+        sortFilter();
+        fireTableDataChanged();
+    }
+
+    public void setOrder(ItemOrder order, boolean descending) {
+        this.order = order;
+        this.descending = descending;
+        invalidate();
+        sortFilter();
+        fireTableDataChanged();
+    }
+
+    // Moves the view on to the current model. Rows that exist before and after are
+    // repainted in place rather than reset, so the selection survives; only the
+    // rows added or dropped at the end are announced as such.
+    public void refresh() {
+        InventoryEvents.TableRefresh event = new InventoryEvents.TableRefresh();
+        event.begin();
+        int before = getRowCount();
+        ItemModel.Snapshot previous = snapshot;
+        snapshot = model.snapshot();
+        previous.close();
+        int after = getRowCount();
+        if (Math.min(before, after) > 0) {
+            fireTableRowsUpdated(0, Math.min(before, after) - 1);
+        }
+        if (after > before) {
+            fireTableRowsInserted(before, after - 1);
+        } else if (after < before) {
+            fireTableRowsDeleted(after, before - 1);
+        }
+        event.record(before, after, snapshot.getVersion());
+    }
+
+    // The slot view is tagged with its snapshot's version, so writes that have not
+    // been refreshed into it yet keep its cache warm; views by ID read the live model
+    private Object[] cells(int row) {
+        boolean bySlot = filter == null && order == null;
+        long version = bySlot ? snapshot.getVersion() : model.getVersion();
+        int at = row & (CACHED_ROWS - 1);
+        Object[] cells = cachedCells[at];
+        if (cachedRows[at] == row && cachedVersions[at] == version) {
+            return cells;
+        }
+        if (bySlot && pages != null) {
+            RowPageCache.Page page = pages.page(snapshot, row);
+            fill(cells, page.getName(row), page.getDescription(row), page.getPriceCents(row), page.getAmount(row));
+        } else if (bySlot) {
+            fill(cells, snapshot.getName(row), snapshot.getDescription(row), snapshot.getPriceCents(row),
+                    snapshot.getAmount(row));
+        } else {
+            Item item = model.getItem(getItemId(row));
+            if (item == null) {
+                return null; // deleted since the search ran
+            }
+            fill(cells, item.getName(), item.getDescription(), item.getPriceCents(), item.getAmount());
+        }
+        cachedRows[at] = row;
+        cachedVersions[at] = version;
+        return cells;
+    }
+
+    // The value is worked out in cents, so 0.10 times 3 shows as 0.3
+    private static void fill(Object[] cells, String name, String description, long priceCents, int amount) {
+        cells[0] = name;
+        cells[1] = description;
+        cells[2] = Money.toPrice(priceCents);
+        cells[3] = amount;
+        cells[4] = Money.toPrice(Money.value(priceCents, amount));
+    }
+
+    // Called whenever rows change meaning without a version bump
+    private void invalidate() {
+        Arrays.fill(cachedRows, -1);
+    }
+
+    // Search results come in index order; put them in the sort order by rank,
+    // O(k log n) for k results instead of comparing keys
+    private void sortFilter() {
+        if (filter == null || order == null) {
+            return;
+        }
+        long[] ranked = new long[filter.length];
+        int n = 0;
+        for (int i = 0; i < filter.length; i++) {
+            int rank = model.rankOf(order, filter[i]);
+            if (rank != -1) {
+                ranked[n++] = (long) rank << 32 | i;
+            }
+        }
+        Arrays.sort(ranked, 0, n);
+        long[] sorted = new long[n];
+        for (int i = 0; i < n; i++) {
+            int index = descending ? n - 1 - i : i;
+            sorted[i] = filter[(int) ranked[index]];
+        }
+        filter = sorted;
+    }
+}
@@ -0,0 +1,506 @@
+package com.lab;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+// Write-ahead journal for in-memory stores. ItemModel appends every mutation
+// here; a writer thread drains whatever has queued up, writes it in one go and
+// fsyncs once for the whole batch (group commit), so the caller never waits on
+// the disk. When the journal passes its size limit it is rotated, and a
+// background compactor folds it into the snapshot. Recovery loads the snapshot
+// and replays the journal(s) on top of it.
+//
+// Files in the journal directory:
+//   snapshot.dat  - every item at the time of the last compaction
+//   journal.old   - a rotated journal still being compacted (only during/after a crash,
+//                   or after a compaction failed)
+//   journal.log   - mutations since the last rotation
+//
+// The journal is only rotated once journal.old is gone: rotating over it would throw
+// away records no snapshot holds yet. Until a compaction succeeds, journal.log just
+// grows past the limit.
+//
+// If a write or fsync fails, the journal stops: nothing after a lost record may be
+// replayed on top of it. Every later record fails too, and ItemModel refuses
+// further edits through checkWritable(), so nobody keeps editing without them
+// being saved.
+public class Journal implements AutoCloseable {
+    private static final System.Logger LOG = System.getLogger(Journal.class.getName());
+    public static final long DEFAULT_LIMIT = 64L << 20;
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+    // Only produced while reading a snapshot: carries its ID counter
+    private static final byte OP_RESERVE = 3;
+    private static final long SNAPSHOT_MAGIC = 0x494E56534E415031L; // "INVSNAP1"
+    // Queued by close(); the writer finishes the batch it is in and stops
+    private static final Pending CLOSE = new Pending(null);
+
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private final Path rotatedFile;
+    private final long limit;
+
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final ExecutorService compactor;
+    private FileChannel channel;
+    private volatile CompletableFuture<Void> compaction = CompletableFuture.completedFuture(null);
+    // The first write failure; once set, nothing more is written
+    private volatile IOException failure;
+
+    private Journal(Path directory, long limit) throws IOException {
+        this.snapshotFile = directory.resolve("snapshot.dat");
+        this.journalFile = directory.resolve("journal.log");
+        this.rotatedFile = directory.resolve("journal.old");
+        this.limit = limit;
+        channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        compactor = Executors.newSingleThreadExecutor(r -> daemon(r, "inventory-compactor"));
+        writer = daemon(this::writeLoop, "inventory-journal");
+        writer.start();
+    }
+
+    // Loads snapshot + journal into model (which should be empty), then attaches
+    // a journal to it so every further mutation is logged.
+    public static Journal open(Path directory, ItemModel model) throws IOException {
+        return open(directory, model, Long.getLong("inventory.journalLimit", DEFAULT_LIMIT));
+    }
+
+    public static Journal open(Path directory, ItemModel model, long limit) throws IOException {
+        recover(directory, entry -> entry.applyTo(model));
+        return attach(directory, model, limit);
+    }
+
+    // Streams the recovered history (snapshot rows, then journal records) to sink
+    // without touching any model, so it can run off the EDT. A torn journal tail is cut off.
+    public static void recover(Path directory, Consumer<Entry> sink) throws IOException {
+        Files.createDirectories(directory);
+        readSnapshot(directory.resolve("snapshot.dat"), sink);
+        replay(directory.resolve("journal.old"), sink);
+        replay(directory.resolve("journal.log"), sink);
+    }
+
+    // Starts logging model's mutations; the model must already hold the recovered state
+    public static Journal attach(Path directory, ItemModel model) throws IOException {
+        return attach(directory, model, Long.getLong("inventory.journalLimit", DEFAULT_LIMIT));
+    }
+
+    private static Journal attach(Path directory, ItemModel model, long limit) throws IOException {
+        Journal journal = new Journal(directory, limit);
+        if (Files.exists(journal.rotatedFile)) {
+            // A compaction was interrupted; finish it
+            journal.compaction = CompletableFuture.runAsync(journal::compact, journal.compactor);
+        }
+        model.setJournal(journal);
+        return journal;
+    }
+
+    // Both return a future that completes once the record is on disk
+    public CompletableFuture<Void> logPut(long id, String name, String description, double price, int amount) {
+        byte[] nameBytes = bytes(name);
+        byte[] descriptionBytes = bytes(description);
+        ByteBuffer buffer = record(1 + 8 + 8 + 4 + 4 + length(nameBytes) + 4 + length(descriptionBytes));
+        buffer.put(OP_PUT).putLong(id).putDouble(price).putInt(amount);
+        putBytes(buffer, nameBytes);
+        putBytes(buffer, descriptionBytes);
+        return enqueue(buffer);
+    }
+
+    public CompletableFuture<Void> logDelete(long id) {
+        ByteBuffer buffer = record(1 + 8);
+        buffer.put(OP_DELETE).putLong(id);
+        return enqueue(buffer);
+    }
+
+    // Throws if an earlier record could not be written, so no further edit is accepted
+    // without being saved
+    public void checkWritable() {
+        IOException e = failure;
+        if (e != null) {
+            throw new UncheckedIOException("The journal could not be written, so edits are no longer saved: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    // Waits for every queued record to reach the disk and for any running compaction
+    @Override
+    public void close() {
+        queue.add(CLOSE);
+        try {
+            writer.join();
+            compaction.join();
+            compactor.shutdown();
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private CompletableFuture<Void> enqueue(ByteBuffer record) {
+        // Frame: payload length, CRC32C of the payload, payload
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), 8, record.position() - 8);
+        record.putInt(0, record.position() - 8);
+        record.putInt(4, (int) crc.getValue());
+        record.flip();
+        Pending pending = new Pending(record);
+        queue.add(pending);
+        // The writer may have stopped; failure is set before it drains the queue a last time
+        IOException e = failure;
+        if (e != null) {
+            pending.done.completeExceptionally(e);
+        }
+        return pending.done;
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        boolean closing = false;
+        while (!closing) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                // Nothing in this class interrupts the writer, so whoever did wants it gone;
+                // records queued from now on would never be written
+                fail(new InterruptedIOException("Journal writer interrupted"));
+                queue.drainTo(batch);
+                for (Pending pending : batch) {
+                    if (pending != CLOSE) {
+                        pending.done.completeExceptionally(failure);
+                    }
+                }
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch);
+            List<ByteBuffer> buffers = new ArrayList<>(batch.size());
+            for (Pending pending : batch) {
+                if (pending == CLOSE) {
+                    closing = true;
+                } else {
+                    buffers.add(pending.record);
+                }
+            }
+            try {
+                if (failure != null) {
+                    throw failure;
+                }
+                if (!buffers.isEmpty()) {
+                    ByteBuffer[] array = buffers.toArray(new ByteBuffer[0]);
+                    long remaining = 0;
+                    for (ByteBuffer buffer : array) {
+                        remaining += buffer.remaining();
+                    }
+                    while (remaining > 0) {
+                        remaining -= channel.write(array);
+                    }
+                    // One fsync for everything in the batch
+                    channel.force(false);
+                }
+                for (Pending pending : batch) {
+                    pending.done.complete(null);
+                }
+                if (channel.size() > limit && compaction.isDone() && !Files.exists(rotatedFile)) {
+                    rotate();
+                }
+            } catch (IOException e) {
+                fail(e);
+                for (Pending pending : batch) {
+                    pending.done.completeExceptionally(e);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+            LOG.log(System.Logger.Level.ERROR, "Journal " + journalFile + " failed; later edits are refused", e);
+        }
+    }
+
+    // The compaction running or last run; for tests
+    CompletableFuture<Void> getCompaction() {
+        return compaction;
+    }
+
+    // Runs on the writer thread, so no record can slip in between close and rename
+    private void rotate() throws IOException {
+        channel.close();
+        Files.move(journalFile, rotatedFile, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        compaction = CompletableFuture.runAsync(this::compact, compactor);
+    }
+
+    // Folds the rotated journal into a new snapshot, off the EDT and the writer thread
+    private void compact() {
+        try {
+            ItemModel merged = new ItemModel(new ColumnarItemStore());
+            readSnapshot(snapshotFile, entry -> entry.applyTo(merged));
+            replay(rotatedFile, entry -> entry.applyTo(merged));
+            Path temp = snapshotFile.resolveSibling("snapshot.tmp");
+            writeSnapshot(temp, merged);
+            Files.move(temp, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(rotatedFile);
+        } catch (IOException | RuntimeException e) {
+            // Nothing is lost: journal.old stays in place, is not rotated over, is
+            // replayed by recovery and compacted again on the next start
+            LOG.log(System.Logger.Level.WARNING, "Could not compact " + rotatedFile + "; retrying on next start", e);
+        }
+    }
+
+    private static void readSnapshot(Path file, Consumer<Entry> sink) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readLong() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not an inventory snapshot: " + file);
+            }
+            long nextId = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                double price = in.readDouble();
+                int amount = in.readInt();
+                String name = readString(in);
+                String description = readString(in);
+                sink.accept(new Entry(OP_PUT, id, name, description, price, amount));
+            }
+            sink.accept(new Entry(OP_RESERVE, nextId, null, null, 0, 0));
+        }
+    }
+
+    private static void writeSnapshot(Path file, ItemModel model) throws IOException {
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(out), 1 << 16));
+            data.writeLong(SNAPSHOT_MAGIC);
+            data.writeLong(model.getNextId());
+            data.writeInt(model.size());
+            for (int slot = 0; slot < model.size(); slot++) {
+                data.writeLong(model.getId(slot));
+                data.writeDouble(model.getPrice(slot));
+                data.writeInt(model.getAmount(slot));
+                writeString(data, model.getName(slot));
+                writeString(data, model.getDescription(slot));
+            }
+            data.flush();
+            out.force(true);
+        }
+    }
+
+    // Applies every intact record; a torn or corrupt tail is cut off
+    private static void replay(Path file, Consumer<Entry> sink) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        long good = 0;
+        try (InputStream stream = Files.newInputStream(file);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16))) {
+            CRC32C crc = new CRC32C();
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                int expected;
+                byte[] payload;
+                try {
+                    expected = in.readInt();
+                    if (length <= 0 || length > (64 << 20)) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != expected) {
+                    break;
+                }
+                sink.accept(decode(ByteBuffer.wrap(payload)));
+                good += 8 + length;
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            if (channel.size() > good) {
+                channel.truncate(good);
+            }
+        }
+    }
+
+    private static Entry decode(ByteBuffer payload) {
+        byte op = payload.get();
+        long id = payload.getLong();
+        if (op == OP_DELETE) {
+            return new Entry(op, id, null, null, 0, 0);
+        }
+        double price = payload.getDouble();
+        int amount = payload.getInt();
+        String name = getString(payload);
+        String description = getString(payload);
+        return new Entry(op, id, name, description, price, amount);
+    }
+
+    private static ByteBuffer record(int payloadLength) {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + payloadLength);
+        buffer.position(8);
+        return buffer;
+    }
+
+    private static byte[] bytes(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String s = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return s;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Thread daemon(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    // One recovered mutation; replaying entries in order rebuilds the inventory
+    // Applies entries in order through as few batches as that allows. A batch runs its
+    // deletes last, so a put of an ID the batch already deletes (undoing a delete)
+    // starts a new one, as does an ID reservation.
+    public static void applyAll(List<Entry> entries, ItemModel model) {
+        final int added = 1;
+        final int deleted = 2;
+        ItemModel.Batch batch = model.beginBatch();
+        LongIntHashMap touched = new LongIntHashMap();
+        for (Entry entry : entries) {
+            if (entry.op == OP_RESERVE || (entry.op == OP_PUT && touched.get(entry.id) == deleted)) {
+                batch.commit();
+                batch = model.beginBatch();
+                touched = new LongIntHashMap();
+            }
+            if (entry.op == OP_RESERVE) {
+                model.reserveIds(entry.id);
+            } else if (entry.op == OP_DELETE) {
+                batch.delete(entry.id);
+                touched.put(entry.id, deleted);
+            } else if (touched.get(entry.id) == -1 && model.slotOf(entry.id) == -1) {
+                batch.restore(entry.id, entry.name, entry.description, entry.price, entry.amount);
+                touched.put(entry.id, added);
+            } else {
+                batch.update(entry.id, entry.name, entry.description, entry.price, entry.amount);
+            }
+        }
+        batch.commit();
+    }
+
+    public static final class Entry {
+        private final byte op;
+        private final long id;
+        private final String name;
+        private final String description;
+        private final double price;
+        private final int amount;
+
+        private Entry(byte op, long id, String name, String description, double price, int amount) {
+            this.op = op;
+            this.id = id;
+            this.name = name;
+            this.description = description;
+            this.price = price;
+            this.amount = amount;
+        }
+
+        // Idempotent: replaying a suffix of the history over a newer state is harmless
+        public void applyTo(ItemModel model) {
+            if (op == OP_RESERVE) {
+                model.reserveIds(id);
+            } else if (op == OP_DELETE) {
+                model.deleteItem(id);
+            } else if (model.slotOf(id) == -1) {
+                model.restoreItem(id, name, description, price, amount);
+            } else {
+                model.updateItem(id, name, description, price, amount);
+            }
+        }
+    }
+
+    private static final class Pending {
+        final ByteBuffer record;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(ByteBuffer record) {
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.lab;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// The original storage: one Item object per row in an ArrayList. Descriptions go
+// through a StringDictionary, so rows with the same one share a single String.
+public class ListItemStore implements ItemStore {
+    private List<Item> items = new ArrayList<>();
+    private final StringDictionary descriptions = new StringDictionary();
+
+    @Override
+    public int size() { return items.size(); }
+
+    @Override
+    public long getId(int slot) { return items.get(slot).getId(); }
+
+    @Override
+    public String getName(int slot) { return items.get(slot).getName(); }
+
+    @Override
+    public String getDescription(int slot) { return items.get(slot).getDescription(); }
+
+    @Override
+    public long getPriceCents(int slot) { return items.get(slot).getPriceCents(); }
+
+    @Override
+    public int getAmount(int slot) { return items.get(slot).getAmount(); }
+
+    @Override
+    public Item getItem(int slot) { return items.get(slot); }
+
+    @Override
+    public void add(long id, String name, String description, long priceCents, int amount) {
+        Item item = new Item(name, descriptions.intern(description), 0, amount);
+        item.setId(id);
+        item.setPriceCents(priceCents);
+        items.add(item);
+    }
+
+    @Override
+    public void set(int slot, String name, String description, long priceCents, int amount) {
+        Item item = items.get(slot);
+        item.setName(name);
+        if (!Objects.equals(item.getDescription(), description)) {
+            String shared = descriptions.intern(description);
+            descriptions.release(descriptions.codeOf(item.getDescription()));
+            item.setDescription(shared);
+        }
+        item.setPriceCents(priceCents);
+        item.setAmount(amount);
+    }
+
+    @Override
+    public void move(int from, int to) {
+        if (from == to) {
+            return;
+        }
+        // Null if "to" was itself the source of an earlier move
+        Item dropped = items.get(to);
+        if (dropped != null) {
+            descriptions.release(descriptions.codeOf(dropped.getDescription()));
+        }
+        // The source row is about to be dropped or overwritten; its Item now belongs to "to"
+        items.set(to, items.set(from, null));
+    }
+
+    @Override
+    public void removeLast() {
+        Item last = items.remove(items.size() - 1);
+        if (last != null) {
+            descriptions.release(descriptions.codeOf(last.getDescription()));
+        }
+    }
+
+    public int distinctDescriptions() { return descriptions.size(); }
+}
@@ -1,64 +1,280 @@
 package com.lab;
 
+import javax.swing.JComponent;
 import javax.swing.JFrame;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.SwingWorker;
 import java.awt.CardLayout;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 public class MainController {
+    private static final System.Logger LOG = System.getLogger(MainController.class.getName());
+    // -Dinventory.undoBytes caps the undo history; the oldest edits are forgotten first
+    private static final long UNDO_BYTES = Long.getLong("inventory.undoBytes", 16 << 20);
+    // -Dinventory.edtStallMs: how long the EDT may be blocked before its stack is captured
+    private static final long EDT_STALL_MS = Long.getLong("inventory.edtStallMs", 200);
+    // -Dinventory.metricsFile writes the diagnostics report there on exit
+    private static final String METRICS_FILE = System.getProperty("inventory.metricsFile");
+
     private ItemModel model;
     private JFrame frame;
     private JPanel rootPanel;
     private DashboardView dashboardView;
-    private DetailView detailView;
+    // Edits made here, on the EDT; background writers are not undoable
+    private UndoLog undoLog = new UndoLog(UNDO_BYTES);
+    // Latency of every action below, and EDT stalls once started
+    private Metrics metrics = new Metrics();
+    private EdtWatchdog watchdog;
+
+    // Cards are registered as factories and only built the first time they are shown
+    private Map<String, Supplier<JComponent>> cardFactories = new HashMap<>();
+    private Map<String, JComponent> cards = new HashMap<>();
+    private Map<String, Long> cardBuildNanos = new LinkedHashMap<>();
 
     public MainController(ItemModel model) {
         this.model = model;
 
         rootPanel = new JPanel(new CardLayout());
 
-        dashboardView = new DashboardView(this, model);
-        detailView = new DetailView(this);
+        registerCard("DASHBOARD", () -> new DashboardView(this, model));
+        registerCard("DETAILS", () -> new DetailView(this));
+        registerCard("REPORT", () -> new ReportView(this, model));
+        registerCard("DIAGNOSTICS", () -> new DiagnosticsView(this, metrics));
+
+        // The dashboard is the first screen, so it is the only card built up front
+        dashboardView = (DashboardView) card("DASHBOARD");
 
-        rootPanel.add(dashboardView, "DASHBOARD");
-        rootPanel.add(detailView, "DETAILS");
+        // Every change reaches the views this way, whoever made it, merged per frame
+        model.addListener(new EdtEventDispatcher(this::modelChanged));
+    }
 
+    // The frame is only created here, so a controller can be built and driven
+    // without a display (the benchmarks do)
+    public void start() {
         frame = new JFrame("Inventory Demo");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.add(rootPanel);
         frame.setSize(500, 300);
         frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+
+        watchdog = new EdtWatchdog(metrics, EDT_STALL_MS);
+        watchdog.start();
+        if (METRICS_FILE != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(this::dumpMetrics, "metrics-dump"));
+        }
     }
 
-    public void start() {
-        frame.setVisible(true);
+    public Metrics getMetrics() { return metrics; }
+
+    private void dumpMetrics() {
+        try {
+            metrics.dump(Path.of(METRICS_FILE));
+        } catch (IOException e) {
+            LOG.log(System.Logger.Level.WARNING, "Could not write " + METRICS_FILE, e);
+        }
+    }
+
+    public void registerCard(String name, Supplier<JComponent> factory) {
+        cardFactories.put(name, factory);
     }
 
-    public void showDetailView(Item item) {
-        detailView.populateData(item);
+    // Build time in nanoseconds of every card built so far, in build order
+    public Map<String, Long> getCardBuildTimes() {
+        return Collections.unmodifiableMap(cardBuildNanos);
+    }
+
+    private JComponent card(String name) {
+        JComponent card = cards.get(name);
+        if (card == null) {
+            long start = System.nanoTime();
+            card = cardFactories.get(name).get();
+            rootPanel.add(card, name);
+            long elapsed = System.nanoTime() - start;
+            cards.put(name, card);
+            cardBuildNanos.put(name, elapsed);
+            // Listed with the actions on the diagnostics card and in its dump
+            metrics.histogram("card " + name).record(elapsed);
+        }
+        return card;
+    }
+
+    private void showCard(String name) {
+        card(name);
         CardLayout layout = (CardLayout)rootPanel.getLayout();
-        layout.show(rootPanel, "DETAILS");
+        layout.show(rootPanel, name);
+    }
+
+    private DetailView detailView() { return (DetailView) card("DETAILS"); }
+
+    private ReportView reportView() { return (ReportView) card("REPORT"); }
+
+    // Starts streaming the inventory in the background; the dashboard shows progress meanwhile
+    public void load(SwingWorker<?, ?> loader) {
+        dashboardView.setLoading(true);
+        loader.execute();
+    }
+
+    // Adds the rows of a CSV file; the table fills in as blocks are parsed
+    public void importCsv(Path file) {
+        load(new CsvImportWorker(file, model, this));
+    }
+
+    // The export writes a snapshot, so only the import and export buttons wait for it
+    public void exportCsv(Path file) {
+        dashboardView.setExporting(true, "Exporting " + file.getFileName() + "\u2026");
+        new CsvExportWorker(file, model, this).execute();
     }
 
-    public void saveItem(Item itemToUpdate, String newName, String newDesc) {
-        // 1. Controller updates the model
-        itemToUpdate.setName(newName);
-        itemToUpdate.setDescription(newDesc);
+    public void exportFinished() {
+        dashboardView.setExporting(false, null);
+    }
+
+    // Called by the loader on the EDT after each chunk, and once more when it is finished;
+    // the rows themselves arrive through modelChanged
+    public void itemsLoaded(boolean finished) {
+        dashboardView.setLoading(!finished);
+    }
+
+    // Every action below records its latency under its own name; one that calls
+    // another (saveItem returning to the dashboard) includes it
+    private void modelChanged(ItemModelEvent event) {
+        long start = System.nanoTime();
+        dashboardView.modelChanged(event);
+        ReportView report = (ReportView) cards.get("REPORT");
+        if (report != null && report.isShowing()) {
+            report.refresh();
+        }
+        metrics.record("modelChanged", start);
+    }
+
+    public void showDetailView(long itemId) {
+        long start = System.nanoTime();
+        Item item = model.getItem(itemId);
+        if (item != null) {
+            detailView().populateData(item);
+            showCard("DETAILS");
+        }
+        metrics.record("showDetailView", start);
+    }
+
+    public void showAddView() {
+        long start = System.nanoTime();
+        detailView().populateData(null);
+        showCard("DETAILS");
+        metrics.record("showAddView", start);
+    }
+
+    public void showReportView() {
+        long start = System.nanoTime();
+        reportView().refresh();
+        showCard("REPORT");
+        metrics.record("report", start);
+    }
+
+    public void showDiagnostics() {
+        ((DiagnosticsView) card("DIAGNOSTICS")).refresh();
+        showCard("DIAGNOSTICS");
+    }
+
+    // The views follow through modelChanged, like they do for every other writer
+    public void addItem(String name, String desc, double price, int amount) {
+        long start = System.nanoTime();
+        Item item = new Item(name, desc, price, amount);
+        if (edit(() -> model.addItem(item) >= 0)) {
+            undoLog.recordAdd(item);
+        }
+        returnToDashboard();
+        metrics.record("addItem", start);
+    }
 
-        // 2. Controller coordinates the UI updates
-        dashboardView.refreshTable();
+    public void saveItem(long itemId, String newName, String newDesc, double newPrice, int newAmount) {
+        long start = System.nanoTime();
+        Item before = model.getItem(itemId);
+        if (before != null && edit(() -> model.updateItem(itemId, newName, newDesc, newPrice, newAmount) != -1)) {
+            undoLog.recordUpdate(before, newName, newDesc, newPrice, newAmount);
+        }
         returnToDashboard();
+        metrics.record("saveItem", start);
+    }
+
+    public void deleteItem(long itemId) {
+        long start = System.nanoTime();
+        Item before = model.getItem(itemId);
+        if (before != null && edit(() -> model.deleteItem(itemId) != -1)) {
+            undoLog.recordDelete(List.of(before));
+        }
+        metrics.record("deleteItem", start);
     }
 
-    public void deleteItem(Item itemToDelete) {
-        // 1. Controller handles the business logic/model update
-        model.deleteItem(itemToDelete);
+    // Removes all the items in one batch, so the views get a single event, and
+    // undo brings them all back the same way
+    public void deleteItems(long[] itemIds) {
+        long start = System.nanoTime();
+        List<Item> before = new ArrayList<>(itemIds.length);
+        ItemModel.Batch batch = model.beginBatch();
+        for (long id : itemIds) {
+            Item item = model.getItem(id);
+            if (item != null) {
+                before.add(item);
+                batch.delete(id);
+            }
+        }
+        if (edit(() -> batch.commit() >= 0)) {
+            undoLog.recordDelete(before);
+        }
+        metrics.record("deleteItems", start);
+    }
+
+    public void undo() {
+        long start = System.nanoTime();
+        edit(() -> {
+            undoLog.undo(model);
+            return true;
+        });
+        metrics.record("undo", start);
+    }
 
-        // 2. Controller tells the view to refresh
-        dashboardView.refreshTable();
+    public void redo() {
+        long start = System.nanoTime();
+        edit(() -> {
+            undoLog.redo(model);
+            return true;
+        });
+        metrics.record("redo", start);
+    }
+
+    // Runs a model edit; if the journal has failed the model refuses it, and the user
+    // is told their edits are no longer being saved. It also refuses, changing nothing,
+    // an edit that would take the stock value total out of range. Returns whether it
+    // took effect.
+    private boolean edit(BooleanSupplier change) {
+        try {
+            return change.getAsBoolean();
+        } catch (UncheckedIOException e) {
+            JOptionPane.showMessageDialog(frame, e.getMessage(), "Edit not saved", JOptionPane.ERROR_MESSAGE);
+            return false;
+        } catch (ArithmeticException e) {
+            JOptionPane.showMessageDialog(frame, "The total stock value would be too large to keep, so nothing was "
+                    + "changed.", "Edit not made", JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
     }
 
     public void returnToDashboard() {
-        CardLayout layout = (CardLayout)rootPanel.getLayout();
-        layout.show(rootPanel, "DASHBOARD");
+        long start = System.nanoTime();
+        showCard("DASHBOARD");
+        metrics.record("returnToDashboard", start);
     }
 }
@@ -0,0 +1,465 @@
+package com.lab;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+// File-backed store built on memory-mapped FileChannels. Rows are fixed-size
+// records in <file>; names and descriptions are appended to <file>.strings.
+// Opening maps the files and reads the header, so it costs the same no matter
+// how many rows there are. Every update is an in-place record write.
+//
+// Each record holds two copies of the row, each with a sequence number and a
+// CRC32C. A write always goes to the older copy, and its CRC is stored last.
+// If the process dies mid-write, the torn copy fails its CRC and the previous
+// copy is used. Strings are append-only and written before the record that
+// points at them. A store that was not closed cleanly is scanned on the next
+// open, and its counters are rebuilt from the rows.
+public class MappedItemStore implements ItemStore {
+    private static final long MAGIC = 0x494E5653544F5231L; // "INVSTOR1"
+    private static final long STRINGS_MAGIC = 0x494E565354525331L; // "INVSTRS1"
+    // 2: prices and the price total in cents rather than as doubles
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 4096;
+
+    // Header fields of the record file
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 8;
+    private static final int H_RECORD_SIZE = 12;
+    private static final int H_COUNT = 16;
+    private static final int H_CLEAN = 20;
+    private static final int H_NEXT_ID = 24;
+    private static final int H_TOTAL_AMOUNT = 32;
+    private static final int H_TOTAL_CENTS = 40;
+
+    // Header fields of the strings file
+    private static final int S_MAGIC = 0;
+    private static final int S_END = 8;
+
+    // One copy of a row; a record is two copies back to back
+    private static final int C_CRC = 0;
+    private static final int C_SEQ = 4;
+    private static final int C_ID = 8;
+    private static final int C_PRICE = 16;
+    private static final int C_NAME = 24;
+    private static final int C_DESCRIPTION = 32;
+    private static final int C_AMOUNT = 40;
+    private static final int COPY_SIZE = 48;
+    static final int RECORD_SIZE = COPY_SIZE * 2;
+
+    private static final int RECORDS_PER_SEGMENT_BITS = 22;
+    private static final int RECORDS_PER_SEGMENT = 1 << RECORDS_PER_SEGMENT_BITS;
+    private static final long STRING_SEGMENT_SIZE = 1L << 28;
+    private static final long NULL_STRING = -1;
+    private static final int COPIES_PER_CHUNK_BITS = 10;
+
+    private final FileChannel records;
+    private final FileChannel strings;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer stringsHeader;
+    // Readers run concurrently under the model's read lock and may be the first to
+    // touch a segment, so these are copied on write under the store's monitor and
+    // published whole: a segment is mapped once, and no reader sees a half-built array
+    private volatile MappedByteBuffer[] recordSegments = new MappedByteBuffer[1];
+    private volatile MappedByteBuffer[] stringSegments = new MappedByteBuffer[1];
+
+    private int count;
+    private long stringsEnd;
+    // Which copy of each record is current: 0 = not resolved yet, 1 = first, 2 = second.
+    // Chunked and allocated as rows are touched, so opening and browsing a large file
+    // costs heap for the rows visited rather than for all of them. Chunks are added
+    // like the segments; concurrent readers may race to fill in entries of a chunk,
+    // but every value they write is correct until the next write, which excludes them.
+    private volatile byte[][] activeCopies = new byte[1][];
+
+    private MappedItemStore(Path file) throws IOException {
+        records = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        strings = FileChannel.open(stringsFile(file),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean created = records.size() == 0;
+        header = records.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        stringsHeader = strings.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+
+        if (created) {
+            header.putLong(H_MAGIC, MAGIC);
+            header.putInt(H_VERSION, VERSION);
+            header.putInt(H_RECORD_SIZE, RECORD_SIZE);
+            header.putLong(H_NEXT_ID, 1);
+            header.putInt(H_CLEAN, 1);
+            stringsHeader.putLong(S_MAGIC, STRINGS_MAGIC);
+            stringsHeader.putLong(S_END, 0);
+        } else if (header.getLong(H_MAGIC) != MAGIC || header.getInt(H_RECORD_SIZE) != RECORD_SIZE
+                || stringsHeader.getLong(S_MAGIC) != STRINGS_MAGIC) {
+            throw new IOException("Not an inventory store: " + file);
+        } else if (header.getInt(H_VERSION) != VERSION) {
+            // Export it to CSV with the build that wrote it, and import that
+            throw new IOException("Inventory store " + file + " has version " + header.getInt(H_VERSION)
+                    + "; this build reads version " + VERSION);
+        }
+        count = header.getInt(H_COUNT);
+        stringsEnd = stringsHeader.getLong(S_END);
+
+        if (header.getInt(H_CLEAN) == 0) {
+            recover();
+        }
+        // Stays 0 while open, so a crash is detected on the next open
+        header.putInt(H_CLEAN, 0);
+        header.force(0, HEADER_SIZE);
+    }
+
+    public static MappedItemStore open(Path file) throws IOException {
+        return new MappedItemStore(file);
+    }
+
+    public static Path stringsFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".strings");
+    }
+
+    @Override
+    public int size() { return count; }
+
+    @Override
+    public long getId(int slot) {
+        checkSlot(slot);
+        return recordSegment(slot).getLong(copyPosition(slot) + C_ID);
+    }
+
+    @Override
+    public String getName(int slot) {
+        checkSlot(slot);
+        return readString(recordSegment(slot).getLong(copyPosition(slot) + C_NAME));
+    }
+
+    @Override
+    public String getDescription(int slot) {
+        checkSlot(slot);
+        return readString(recordSegment(slot).getLong(copyPosition(slot) + C_DESCRIPTION));
+    }
+
+    @Override
+    public long getPriceCents(int slot) {
+        checkSlot(slot);
+        return recordSegment(slot).getLong(copyPosition(slot) + C_PRICE);
+    }
+
+    @Override
+    public int getAmount(int slot) {
+        checkSlot(slot);
+        return recordSegment(slot).getInt(copyPosition(slot) + C_AMOUNT);
+    }
+
+    // Records are not objects here, so hand out a detached copy
+    @Override
+    public Item getItem(int slot) {
+        Item item = new Item(getName(slot), getDescription(slot), 0, getAmount(slot));
+        item.setId(getId(slot));
+        item.setPriceCents(getPriceCents(slot));
+        return item;
+    }
+
+    @Override
+    public void add(long id, String name, String description, long priceCents, int amount) {
+        writeRecord(count, id, appendString(name), appendString(description), priceCents, amount);
+        // Publish the row only once the record is complete
+        VarHandle.storeStoreFence();
+        count++;
+        header.putInt(H_COUNT, count);
+    }
+
+    @Override
+    public void set(int slot, String name, String description, long priceCents, int amount) {
+        checkSlot(slot);
+        MappedByteBuffer segment = recordSegment(slot);
+        int position = copyPosition(slot);
+        long nameRef = segment.getLong(position + C_NAME);
+        long descriptionRef = segment.getLong(position + C_DESCRIPTION);
+        // Unchanged strings keep their bytes instead of appending a duplicate
+        if (!equal(readString(nameRef), name)) {
+            nameRef = appendString(name);
+        }
+        if (!equal(readString(descriptionRef), description)) {
+            descriptionRef = appendString(description);
+        }
+        writeRecord(slot, segment.getLong(position + C_ID), nameRef, descriptionRef, priceCents, amount);
+    }
+
+    @Override
+    public void move(int from, int to) {
+        checkSlot(from);
+        checkSlot(to);
+        MappedByteBuffer segment = recordSegment(from);
+        int position = copyPosition(from);
+        writeRecord(to, segment.getLong(position + C_ID), segment.getLong(position + C_NAME),
+                segment.getLong(position + C_DESCRIPTION), segment.getLong(position + C_PRICE),
+                segment.getInt(position + C_AMOUNT));
+    }
+
+    @Override
+    public void removeLast() {
+        if (count == 0) {
+            throw new IndexOutOfBoundsException("Store is empty");
+        }
+        count--;
+        header.putInt(H_COUNT, count);
+    }
+
+    @Override
+    public ModelState restoreState() {
+        ModelState state = new ModelState();
+        state.nextId = header.getLong(H_NEXT_ID);
+        state.totalAmount = header.getLong(H_TOTAL_AMOUNT);
+        state.totalCents = header.getLong(H_TOTAL_CENTS);
+        return state;
+    }
+
+    @Override
+    public void persistState(ModelState state) {
+        header.putLong(H_NEXT_ID, state.nextId);
+        header.putLong(H_TOTAL_AMOUNT, state.totalAmount);
+        header.putLong(H_TOTAL_CENTS, state.totalCents);
+    }
+
+    // Flushes everything to disk and marks the store cleanly closed
+    @Override
+    public void close() {
+        try {
+            flush();
+            header.putInt(H_CLEAN, 1);
+            header.force(0, HEADER_SIZE);
+            records.close();
+            strings.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Forces mapped pages to disk; kill -9 alone never loses them, but a power cut can
+    public void flush() {
+        for (MappedByteBuffer segment : stringSegments) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+        stringsHeader.force();
+        for (MappedByteBuffer segment : recordSegments) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+        header.force();
+    }
+
+    // After a crash: check every record, undo a half-finished swap-remove or
+    // batch compaction and rebuild the counters that may not have been saved.
+    // Both only ever copy a row towards the front, so the first copy of an ID wins.
+    private void recover() {
+        ModelState state = new ModelState();
+        LongIntHashMap seen = new LongIntHashMap(count);
+        int write = 0;
+        for (int slot = 0; slot < count; slot++) {
+            long id = getId(slot);
+            if (seen.get(id) != -1) {
+                continue;
+            }
+            if (write != slot) {
+                move(slot, write);
+            }
+            seen.put(id, write);
+            state.nextId = Math.max(state.nextId, id + 1);
+            state.totalAmount += getAmount(write);
+            state.totalCents = Math.addExact(state.totalCents, Money.value(getPriceCents(write), getAmount(write)));
+            write++;
+        }
+        count = write;
+        header.putInt(H_COUNT, count);
+        state.nextId = Math.max(state.nextId, header.getLong(H_NEXT_ID));
+        persistState(state);
+    }
+
+    // Writes the row into whichever copy is not current, then makes it current
+    private void writeRecord(int slot, long id, long nameRef, long descriptionRef, long priceCents, int amount) {
+        MappedByteBuffer segment = recordSegment(slot);
+        int base = recordPosition(slot);
+        int first = validSequence(segment, base);
+        int second = validSequence(segment, base + COPY_SIZE);
+        int target;
+        int sequence;
+        if (first == 0 && second == 0) {
+            target = 1;
+            sequence = 1;
+        } else if (second == 0 || (first != 0 && first - second > 0)) {
+            target = 2;
+            sequence = first + 1;
+        } else {
+            target = 1;
+            sequence = second + 1;
+        }
+        if (sequence == 0) {
+            sequence = 1; // 0 marks "no valid copy"
+        }
+        int position = base + (target - 1) * COPY_SIZE;
+        segment.putInt(position + C_SEQ, sequence);
+        segment.putLong(position + C_ID, id);
+        segment.putLong(position + C_PRICE, priceCents);
+        segment.putLong(position + C_NAME, nameRef);
+        segment.putLong(position + C_DESCRIPTION, descriptionRef);
+        segment.putInt(position + C_AMOUNT, amount);
+        segment.putInt(position + C_AMOUNT + 4, 0);
+        // The CRC must not land before the fields it covers
+        VarHandle.storeStoreFence();
+        segment.putInt(position + C_CRC, checksum(segment, position));
+        activeCopies(slot)[slot & (1 << COPIES_PER_CHUNK_BITS) - 1] = (byte) target;
+    }
+
+    // Sequence number of the copy at position, or 0 if it is torn or was never written
+    private int validSequence(MappedByteBuffer segment, int position) {
+        int sequence = segment.getInt(position + C_SEQ);
+        if (sequence == 0 || segment.getInt(position + C_CRC) != checksum(segment, position)) {
+            return 0;
+        }
+        return sequence;
+    }
+
+    // A CRC32C per call: readers resolve records concurrently
+    private static int checksum(MappedByteBuffer segment, int position) {
+        CRC32C crc = new CRC32C();
+        crc.update(segment.slice(position + C_SEQ, COPY_SIZE - C_SEQ));
+        return (int) crc.getValue();
+    }
+
+    // Position of the current copy of the slot's record within its segment
+    private int copyPosition(int slot) {
+        byte[] copies = activeCopies(slot);
+        int at = slot & (1 << COPIES_PER_CHUNK_BITS) - 1;
+        byte copy = copies[at];
+        if (copy == 0) {
+            MappedByteBuffer segment = recordSegment(slot);
+            int base = recordPosition(slot);
+            int first = validSequence(segment, base);
+            int second = validSequence(segment, base + COPY_SIZE);
+            if (first == 0 && second == 0) {
+                throw new IllegalStateException("Corrupt inventory record in slot " + slot);
+            }
+            copy = (byte) (second == 0 || (first != 0 && first - second > 0) ? 1 : 2);
+            copies[at] = copy;
+        }
+        return recordPosition(slot) + (copy - 1) * COPY_SIZE;
+    }
+
+    private byte[] activeCopies(int slot) {
+        int index = slot >>> COPIES_PER_CHUNK_BITS;
+        byte[][] chunks = activeCopies;
+        return index < chunks.length && chunks[index] != null ? chunks[index] : addActiveCopies(index);
+    }
+
+    private synchronized byte[] addActiveCopies(int index) {
+        byte[][] chunks = activeCopies;
+        if (index < chunks.length && chunks[index] != null) {
+            return chunks[index];
+        }
+        chunks = Arrays.copyOf(chunks, Math.max(index + 1, chunks.length));
+        chunks[index] = new byte[1 << COPIES_PER_CHUNK_BITS];
+        activeCopies = chunks;
+        return chunks[index];
+    }
+
+    private static int recordPosition(int slot) {
+        return (slot & (RECORDS_PER_SEGMENT - 1)) * RECORD_SIZE;
+    }
+
+    private MappedByteBuffer recordSegment(int slot) {
+        int index = slot >>> RECORDS_PER_SEGMENT_BITS;
+        MappedByteBuffer[] segments = recordSegments;
+        return index < segments.length && segments[index] != null ? segments[index] : mapRecordSegment(index);
+    }
+
+    private synchronized MappedByteBuffer mapRecordSegment(int index) {
+        MappedByteBuffer[] segments = recordSegments;
+        if (index < segments.length && segments[index] != null) {
+            return segments[index];
+        }
+        long size = (long) RECORDS_PER_SEGMENT * RECORD_SIZE;
+        segments = Arrays.copyOf(segments, Math.max(index + 1, segments.length));
+        segments[index] = map(records, HEADER_SIZE + index * size, size);
+        recordSegments = segments;
+        return segments[index];
+    }
+
+    private MappedByteBuffer stringSegment(int index) {
+        MappedByteBuffer[] segments = stringSegments;
+        return index < segments.length && segments[index] != null ? segments[index] : mapStringSegment(index);
+    }
+
+    private synchronized MappedByteBuffer mapStringSegment(int index) {
+        MappedByteBuffer[] segments = stringSegments;
+        if (index < segments.length && segments[index] != null) {
+            return segments[index];
+        }
+        segments = Arrays.copyOf(segments, Math.max(index + 1, segments.length));
+        segments[index] = map(strings, HEADER_SIZE + index * STRING_SEGMENT_SIZE, STRING_SEGMENT_SIZE);
+        stringSegments = segments;
+        return segments[index];
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long size) {
+        try {
+            // Mapping past the end grows the (sparse) file to cover the whole segment
+            return channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long appendString(String s) {
+        if (s == null) {
+            return NULL_STRING;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        long needed = 4L + bytes.length;
+        if (needed > STRING_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("String too long for the inventory store: " + bytes.length + " bytes");
+        }
+        long offset = stringsEnd % STRING_SEGMENT_SIZE;
+        if (offset + needed > STRING_SEGMENT_SIZE) {
+            // Strings never straddle two mappings
+            stringsEnd += STRING_SEGMENT_SIZE - offset;
+            offset = 0;
+        }
+        long address = stringsEnd;
+        MappedByteBuffer segment = stringSegment((int) (address / STRING_SEGMENT_SIZE));
+        segment.putInt((int) offset, bytes.length);
+        segment.put((int) offset + 4, bytes);
+        stringsEnd += needed;
+        VarHandle.storeStoreFence();
+        stringsHeader.putLong(S_END, stringsEnd);
+        return address;
+    }
+
+    private String readString(long address) {
+        if (address == NULL_STRING) {
+            return null;
+        }
+        MappedByteBuffer segment = stringSegment((int) (address / STRING_SEGMENT_SIZE));
+        int offset = (int) (address % STRING_SEGMENT_SIZE);
+        byte[] bytes = new byte[segment.getInt(offset)];
+        segment.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= count) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " out of bounds for size " + count);
+        }
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
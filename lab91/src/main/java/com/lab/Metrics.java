@@ -0,0 +1,100 @@
+package com.lab;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Latency histograms per named action, plus the EDT stalls EdtWatchdog caught.
+// Shown on the diagnostics card and written out by dump().
+public class Metrics {
+    private static final int MAX_STALLS = 20;
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+    // The most recent stalls, oldest first; guarded by itself
+    private final Deque<Stall> stalls = new ArrayDeque<>();
+
+    // One EDT stall: when it started, the EDT stack once it passed the threshold,
+    // and how long it lasted (growing while the EDT is still blocked)
+    public static class Stall {
+        private final long startMillis;
+        private final StackTraceElement[] stack;
+        private volatile long nanos;
+        private volatile boolean over;
+
+        Stall(long startMillis, StackTraceElement[] stack, long nanos) {
+            this.startMillis = startMillis;
+            this.stack = stack;
+            this.nanos = nanos;
+        }
+
+        public long getStartMillis() { return startMillis; }
+
+        public StackTraceElement[] getStack() { return stack; }
+
+        public long getNanos() { return nanos; }
+
+        public boolean isOver() { return over; }
+
+        void update(long nanos, boolean over) {
+            this.nanos = nanos;
+            this.over = over;
+        }
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    // Records the time since `startNanos` (from System.nanoTime) under `name`
+    public void record(String name, long startNanos) {
+        histogram(name).record(System.nanoTime() - startNanos);
+    }
+
+    void addStall(Stall stall) {
+        synchronized (stalls) {
+            if (stalls.size() == MAX_STALLS) {
+                stalls.removeFirst();
+            }
+            stalls.addLast(stall);
+        }
+    }
+
+    public List<Stall> getStalls() {
+        synchronized (stalls) {
+            return new ArrayList<>(stalls);
+        }
+    }
+
+    public String report() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-20s %8s %10s %10s %10s %10s %10s%n", "Action (ms)", "Count", "Mean", "p50",
+                "p90", "p99", "Max"));
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram h = entry.getValue();
+            out.append(String.format("%-20s %8d %10.3f %10.3f %10.3f %10.3f %10.3f%n", entry.getKey(), h.getCount(),
+                    h.getMean() / 1e6, h.getPercentile(0.5) / 1e6, h.getPercentile(0.9) / 1e6,
+                    h.getPercentile(0.99) / 1e6, h.getMax() / 1e6));
+        }
+        List<Stall> recent = getStalls();
+        out.append(String.format("%nEDT stalls: %d%n", recent.size()));
+        for (Stall stall : recent) {
+            out.append(String.format("%n%s  %.1f ms%s%n", Instant.ofEpochMilli(stall.getStartMillis()),
+                    stall.getNanos() / 1e6, stall.isOver() ? "" : " and counting"));
+            for (StackTraceElement frame : stall.getStack()) {
+                out.append("    at ").append(frame).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    public void dump(Path file) throws IOException {
+        Files.writeString(file, report());
+    }
+}
@@ -0,0 +1,52 @@
+package com.lab;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Builds the ItemModel the system properties ask for. Shared by the GUI and the
+// headless entry point, so it must not touch javax.swing or java.awt.
+public class ModelFactory {
+
+    // -Dinventory.file=path keeps the inventory in a memory-mapped file, which opens in O(1).
+    // Otherwise -Dinventory.storage=list|columnar picks an in-memory store, which starts empty
+    // and is loaded from -Dinventory.journal=dir (see journalToLoad), or gets sample data.
+    public static ItemModel create() {
+        String file = System.getProperty("inventory.file");
+        if (file != null) {
+            try {
+                return new ItemModel(MappedItemStore.open(Path.of(file)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        ItemModel model = new ItemModel(ItemStore.create(System.getProperty("inventory.storage", "list")));
+        if (System.getProperty("inventory.journal") == null) {
+            model.addSampleItems();
+        }
+        return model;
+    }
+
+    // The journal an in-memory model from create() still has to be loaded from, or null
+    public static Path journalToLoad() {
+        String journal = System.getProperty("inventory.journal");
+        return journal != null && System.getProperty("inventory.file") == null ? Path.of(journal) : null;
+    }
+
+    // Whether the model is backed by a file or journal that close() has to flush
+    public static boolean isPersistent() {
+        return System.getProperty("inventory.file") != null || System.getProperty("inventory.journal") != null;
+    }
+
+    // Replays the journal on the calling thread and keeps logging to it; a new journal
+    // starts with the sample items. The GUI does the same through InventoryLoader.
+    public static void loadJournal(Path directory, ItemModel model) throws IOException {
+        boolean fresh = !Files.exists(directory);
+        Journal.recover(directory, entry -> entry.applyTo(model));
+        Journal.attach(directory, model);
+        if (fresh) {
+            model.addSampleItems();
+        }
+    }
+}
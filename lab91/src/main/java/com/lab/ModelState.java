@@ -0,0 +1,18 @@
+package com.lab;
+
+// The counters ItemModel keeps next to its rows. Persistent stores save them
+// with every mutation so reopening an inventory does not require a full scan.
+public class ModelState {
+    long nextId = 1;
+    long totalAmount;
+    // Sum of price * amount in cents; exact, so it never needs reconciling
+    long totalCents;
+
+    public long getNextId() { return nextId; }
+
+    public long getTotalAmount() { return totalAmount; }
+
+    public long getTotalCents() { return totalCents; }
+
+    public double getTotalPrice() { return Money.toPrice(totalCents); }
+}
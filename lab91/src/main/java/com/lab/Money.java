@@ -0,0 +1,57 @@
+package com.lab;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Prices are kept as whole cents in a long, so stock values and the totals built
+// from them are exact integer sums instead of binary fractions that drift. Doubles
+// remain at the edges (Item, the views, CSV and the journal) and go through here.
+//
+// A double becomes cents by its shortest decimal form, the one Double.toString
+// prints, rounded HALF_UP to two places: 10.005 is 10.01 and 0.1 is 10 cents,
+// though neither is exactly that in binary. Cents go back to the nearest double,
+// so converting there and back again is exact.
+public final class Money {
+    public static final int SCALE = 2;
+    public static final RoundingMode ROUNDING = RoundingMode.HALF_UP;
+    // Below 2^53 every cent count is an exact double, which the round trip relies on
+    public static final long MAX_CENTS = 1L << 53;
+
+    private Money() {}
+
+    public static long toCents(double price) {
+        if (!(Math.abs(price) < MAX_CENTS / 100.0)) {
+            throw new ArithmeticException("Price out of range: " + price);
+        }
+        // Almost every price already has at most two decimals, and is then the
+        // nearest double to cents / 100; only the others need the decimal form
+        long cents = Math.round(price * 100);
+        if (cents / 100.0 == price) {
+            return cents;
+        }
+        return BigDecimal.valueOf(price).setScale(SCALE, ROUNDING).unscaledValue().longValueExact();
+    }
+
+    public static double toPrice(long cents) {
+        return cents / 100.0;
+    }
+
+    // Cents as a plain decimal for display, exact at any size: never exponent
+    // notation, and two decimals unless the second is a zero ("1030.0", "10.25"),
+    // so whole amounts read as the views and reports have always shown them
+    public static String format(long cents) {
+        BigDecimal price = BigDecimal.valueOf(cents, SCALE);
+        return (cents % 10 == 0 ? price.setScale(1, RoundingMode.UNNECESSARY) : price).toPlainString();
+    }
+
+    // Whether `amount` units at `price` are worth few enough cents for a long. Near
+    // the limit this can pass a row that value() then rejects.
+    public static boolean fits(double price, int amount) {
+        return Math.abs(price) < MAX_CENTS / 100.0 && Math.abs(price * 100 * amount) < 0x1p63;
+    }
+
+    // Stock value of `amount` units, in cents; throws rather than wrap
+    public static long value(long cents, int amount) {
+        return Math.multiplyExact(cents, (long) amount);
+    }
+}
@@ -0,0 +1,74 @@
+package com.lab;
+
+import java.text.FieldPosition;
+import java.text.NumberFormat;
+
+// Right-aligned numbers, formatted the way JTable's own number renderers do, but
+// each distinct value is formatted once: its text stays in a small direct-mapped
+// cache keyed by the value, so repainting or scrolling past prices seen before
+// neither formats nor allocates. One renderer per column keeps each cache to
+// one column's values.
+public class NumberCellRenderer extends TextCellRenderer {
+    private static final int CACHE_BITS = 10;
+
+    private final NumberFormat format;
+    private final long[] keys = new long[1 << CACHE_BITS];
+    private final String[] texts = new String[1 << CACHE_BITS];
+    // Reused by every miss, so formatting only allocates the String it keeps
+    private final StringBuffer buffer = new StringBuffer();
+    private final FieldPosition position = new FieldPosition(0);
+
+    public NumberCellRenderer(NumberFormat format) {
+        this.format = format;
+        setHorizontalAlignment(RIGHT);
+    }
+
+    // Decimal values like JTable's Double renderer
+    public static NumberCellRenderer decimal() {
+        return new NumberCellRenderer(NumberFormat.getInstance());
+    }
+
+    // Whole numbers like JTable's Integer renderer, which prints them ungrouped
+    public static NumberCellRenderer integer() {
+        NumberFormat format = NumberFormat.getIntegerInstance();
+        format.setGroupingUsed(false);
+        return new NumberCellRenderer(format);
+    }
+
+    @Override
+    protected void setValue(Object value) {
+        if (value instanceof Double d) {
+            setText(text(d));
+        } else if (value instanceof Number n) {
+            setText(text(n.longValue()));
+        } else {
+            setText("");
+        }
+    }
+
+    String text(double value) {
+        long key = Double.doubleToLongBits(value);
+        int slot = slot(key);
+        if (keys[slot] != key || texts[slot] == null) {
+            buffer.setLength(0);
+            texts[slot] = format.format(value, buffer, position).toString();
+            keys[slot] = key;
+        }
+        return texts[slot];
+    }
+
+    String text(long value) {
+        int slot = slot(value);
+        if (keys[slot] != value || texts[slot] == null) {
+            buffer.setLength(0);
+            texts[slot] = format.format(value, buffer, position).toString();
+            keys[slot] = value;
+        }
+        return texts[slot];
+    }
+
+    private static int slot(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed >>> (64 - CACHE_BITS));
+    }
+}
@@ -0,0 +1,306 @@
+package com.lab;
+
+import java.util.Arrays;
+
+// Items sorted by one ItemOrder, kept up to date by ItemModel, so a sorted view
+// never has to sort: row r of the view is simply the item of rank r.
+//
+// A treap (a binary search tree that is also a heap on random priorities, which
+// keeps it balanced) whose nodes know their subtree size. Insert, delete, rank
+// and select are all O(log n). Nodes are linked by index, 0 being "none", and
+// freed nodes are reused. A node's links sit together in one int[] and its ID
+// and numeric key in one long[], so each level of a descent touches about two
+// cache lines instead of one per field.
+public class OrderIndex {
+    private final ItemOrder order;
+
+    // Per node: left, right, subtree size, priority
+    private static final int LEFT = 0;
+    private static final int RIGHT = 1;
+    private static final int SIZE = 2;
+    private static final int PRIORITY = 3;
+
+    private int[] links;
+    // Per node: ID, then the raw bits of the numeric key
+    private long[] keys;
+    // The key of each node for NAME
+    private String[] names;
+    private int capacity;
+
+    private int root;
+    private int nodes;
+    // Head of the free list, chained through the left links
+    private int free;
+    private LongIntHashMap nodeById;
+    private int seed = 0x2545F491;
+
+    // Set by split()
+    private int splitLeft;
+    private int splitRight;
+
+    // Reads a snapshot a chunk of rows at a time, so ItemModel builds it without
+    // holding up readers or writers; it then replays what was written meanwhile
+    OrderIndex(ItemOrder order, ItemModel.Snapshot snapshot) {
+        this.order = order;
+        int size = snapshot.size();
+        allocate(Math.max(16, size + 1));
+        nodeById = new LongIntHashMap(size);
+        int[] sorted = new int[size];
+        for (int from = 0; from < size; from += ItemModel.SCAN_ROWS) {
+            snapshot.scan(from, Math.min(size, from + ItemModel.SCAN_ROWS), row -> sorted[row.getSlot()] =
+                    newNode(row.getId(), row.getName(), row.getPrice(), row.getAmount()));
+        }
+        mergeSort(sorted, new int[size], 0, size);
+        root = build(sorted, 0, size, 0);
+    }
+
+    public ItemOrder getOrder() { return order; }
+
+    public int size() { return size(root); }
+
+    // ID of the item at position `rank` in this order
+    public long idAt(int rank) {
+        int node = root;
+        while (true) {
+            int leftSize = size(left(node));
+            if (rank < leftSize) {
+                node = left(node);
+            } else if (rank == leftSize) {
+                return id(node);
+            } else {
+                rank -= leftSize + 1;
+                node = right(node);
+            }
+        }
+    }
+
+    // Position of the item in this order, or -1 if it is not in the index
+    public int rankOf(long id) {
+        int target = nodeById.get(id);
+        if (target == -1) {
+            return -1;
+        }
+        int rank = 0;
+        int node = root;
+        while (node != target) {
+            if (compare(target, node) < 0) {
+                node = left(node);
+            } else {
+                rank += size(left(node)) + 1;
+                node = right(node);
+            }
+        }
+        return rank + size(left(node));
+    }
+
+    void add(long id, String name, double price, int amount) {
+        int node = newNode(id, name, price, amount);
+        links[node << 2 | PRIORITY] = nextPriority();
+        root = insert(root, node);
+    }
+
+    void remove(long id) {
+        int node = nodeById.remove(id);
+        if (node == -1) {
+            return;
+        }
+        root = delete(root, node);
+        if (names != null) {
+            names[node] = null;
+        }
+        setLeft(node, free);
+        free = node;
+    }
+
+    // Only moves the node when its key actually changed
+    void update(long id, String name, double price, int amount) {
+        int node = nodeById.get(id);
+        if (node != -1 && (order == ItemOrder.NAME ? nameKey(name).equals(names[node])
+                : Double.compare(key(price, amount), number(node)) == 0)) {
+            return;
+        }
+        remove(id);
+        add(id, name, price, amount);
+    }
+
+    private double key(double price, int amount) {
+        return switch (order) {
+            case PRICE -> price;
+            case AMOUNT -> amount;
+            case VALUE -> price * amount;
+            case NAME -> 0;
+        };
+    }
+
+    // Names ignore case first; ties fall back to the ID so every key is distinct
+    private int compare(int a, int b) {
+        int c = order == ItemOrder.NAME
+                ? compareNames(names[a], names[b])
+                : Double.compare(number(a), number(b));
+        return c != 0 ? c : Long.compare(id(a), id(b));
+    }
+
+    private static String nameKey(String name) { return name == null ? "" : name; }
+
+    private static int compareNames(String a, String b) {
+        int c = String.CASE_INSENSITIVE_ORDER.compare(a, b);
+        return c != 0 ? c : a.compareTo(b);
+    }
+
+    private int insert(int tree, int node) {
+        if (tree == 0) {
+            return node;
+        }
+        if (priority(node) > priority(tree)) {
+            split(tree, node);
+            setLeft(node, splitLeft);
+            setRight(node, splitRight);
+            resize(node);
+            return node;
+        }
+        if (compare(node, tree) < 0) {
+            setLeft(tree, insert(left(tree), node));
+        } else {
+            setRight(tree, insert(right(tree), node));
+        }
+        links[tree << 2 | SIZE]++;
+        return tree;
+    }
+
+    private int delete(int tree, int node) {
+        if (tree == node) {
+            return merge(left(node), right(node));
+        }
+        if (compare(node, tree) < 0) {
+            setLeft(tree, delete(left(tree), node));
+        } else {
+            setRight(tree, delete(right(tree), node));
+        }
+        links[tree << 2 | SIZE]--;
+        return tree;
+    }
+
+    // Splits tree into the nodes ordered before `node` and those after it
+    private void split(int tree, int node) {
+        if (tree == 0) {
+            splitLeft = 0;
+            splitRight = 0;
+        } else if (compare(tree, node) < 0) {
+            split(right(tree), node);
+            setRight(tree, splitLeft);
+            resize(tree);
+            splitLeft = tree;
+        } else {
+            split(left(tree), node);
+            setLeft(tree, splitRight);
+            resize(tree);
+            splitRight = tree;
+        }
+    }
+
+    private int merge(int a, int b) {
+        if (a == 0) {
+            return b;
+        }
+        if (b == 0) {
+            return a;
+        }
+        if (priority(a) > priority(b)) {
+            setRight(a, merge(right(a), b));
+            resize(a);
+            return a;
+        }
+        setLeft(b, merge(a, left(b)));
+        resize(b);
+        return b;
+    }
+
+    private int left(int node) { return links[node << 2 | LEFT]; }
+    private int right(int node) { return links[node << 2 | RIGHT]; }
+    private int size(int node) { return links[node << 2 | SIZE]; }
+    private int priority(int node) { return links[node << 2 | PRIORITY]; }
+    private void setLeft(int node, int child) { links[node << 2 | LEFT] = child; }
+    private void setRight(int node, int child) { links[node << 2 | RIGHT] = child; }
+    private long id(int node) { return keys[node << 1]; }
+    private double number(int node) { return Double.longBitsToDouble(keys[node << 1 | 1]); }
+
+    private void resize(int node) {
+        links[node << 2 | SIZE] = size(left(node)) + size(right(node)) + 1;
+    }
+
+    // Balanced tree over sorted[from, to). Priorities fall with depth, so the
+    // heap order holds; later inserts draw random ones.
+    private int build(int[] sorted, int from, int to, int depth) {
+        if (from >= to) {
+            return 0;
+        }
+        int mid = (from + to) >>> 1;
+        int node = sorted[mid];
+        links[node << 2 | PRIORITY] = (40 - depth) << 24 | nextPriority() & 0xFFFFFF;
+        setLeft(node, build(sorted, from, mid, depth + 1));
+        setRight(node, build(sorted, mid + 1, to, depth + 1));
+        resize(node);
+        return node;
+    }
+
+    // Stable merge sort of node numbers by compare(); Arrays.sort needs boxes for a comparator
+    private void mergeSort(int[] a, int[] scratch, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(a, scratch, from, mid);
+        mergeSort(a, scratch, mid, to);
+        if (compare(a[mid - 1], a[mid]) <= 0) {
+            return; // already in order, which is common for IDs handed out in sequence
+        }
+        System.arraycopy(a, from, scratch, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            a[k] = j >= to || (i < mid && compare(scratch[i], scratch[j]) <= 0) ? scratch[i++] : scratch[j++];
+        }
+    }
+
+    private int newNode(long id, String name, double price, int amount) {
+        int node;
+        if (free != 0) {
+            node = free;
+            free = left(node);
+        } else {
+            node = ++nodes;
+            if (node == capacity) {
+                allocate(capacity * 2);
+            }
+        }
+        keys[node << 1] = id;
+        if (order == ItemOrder.NAME) {
+            names[node] = nameKey(name);
+        } else {
+            keys[node << 1 | 1] = Double.doubleToRawLongBits(key(price, amount));
+        }
+        setLeft(node, 0);
+        setRight(node, 0);
+        links[node << 2 | SIZE] = 1;
+        nodeById.put(id, node);
+        return node;
+    }
+
+    private void allocate(int newCapacity) {
+        // Node 0 is the empty tree: size 0, no children
+        links = links == null ? new int[newCapacity << 2] : Arrays.copyOf(links, newCapacity << 2);
+        keys = keys == null ? new long[newCapacity << 1] : Arrays.copyOf(keys, newCapacity << 1);
+        if (order == ItemOrder.NAME) {
+            names = names == null ? new String[newCapacity] : Arrays.copyOf(names, newCapacity);
+        }
+        capacity = newCapacity;
+    }
+
+    // xorshift: cheap, and good enough to keep the treap balanced
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed & Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,301 @@
+package com.lab;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// The breakdowns behind ReportView, all from one pass over a snapshot: stock value
+// by description, a histogram over price bands, the items holding the most stock
+// value, and the items out of stock.
+//
+// The pass is a fork-join split of the slot range. Each leaf scans its chunk under
+// one read lock into a partial result of its own, and partials are merged on the
+// way back up, so nothing is shared between threads while scanning. Values are
+// summed in cents, so the result does not depend on how the range was split.
+public class ReportEngine {
+    // Rows per leaf: large enough to amortise the task, small enough that a writer
+    // waiting for the read lock to go is not held up for long
+    private static final int CHUNK = 32_768;
+    // Default price bands: below 1, 1 to 10, ... 1,000 to 10,000, and above
+    private static final double[] DEFAULT_BANDS = { 1, 10, 100, 1_000, 10_000 };
+
+    private final ForkJoinPool pool;
+    private final int topCount;
+    private final int zeroStockLimit;
+    // Band bounds in cents
+    private final long[] bands;
+
+    public ReportEngine() {
+        this(ForkJoinPool.commonPool(), 20, 1000, DEFAULT_BANDS);
+    }
+
+    // `bands` are the ascending upper bounds of every band but the last;
+    // `zeroStockLimit` caps how many out-of-stock items are listed, not counted
+    public ReportEngine(ForkJoinPool pool, int topCount, int zeroStockLimit, double[] bands) {
+        this.pool = pool;
+        this.topCount = topCount;
+        this.zeroStockLimit = zeroStockLimit;
+        this.bands = new long[bands.length];
+        for (int band = 0; band < bands.length; band++) {
+            this.bands[band] = Money.toCents(bands[band]);
+        }
+    }
+
+    // Items, units and stock value for one description or one price band
+    public static class Group {
+        private final String key;
+        private long items;
+        private long amount;
+        private long valueCents;
+
+        Group(String key) {
+            this.key = key;
+        }
+
+        public String getKey() { return key; }
+        public long getItems() { return items; }
+        public long getAmount() { return amount; }
+        public long getValueCents() { return valueCents; }
+        public double getValue() { return Money.toPrice(valueCents); }
+
+        void add(int amount, long valueCents) {
+            items++;
+            this.amount += amount;
+            this.valueCents = Math.addExact(this.valueCents, valueCents);
+        }
+
+        void add(Group other) {
+            items += other.items;
+            amount += other.amount;
+            valueCents = Math.addExact(valueCents, other.valueCents);
+        }
+    }
+
+    public static class Report {
+        private final long version;
+        private final long items;
+        private final long totalAmount;
+        private final long totalValueCents;
+        private final List<Group> descriptions;
+        private final List<Group> priceBands;
+        private final List<Item> topItems;
+        private final long zeroStockCount;
+        private final List<Item> zeroStock;
+        private long nanos;
+
+        Report(long version, Partial partial, List<Group> priceBands, List<Item> topItems, List<Item> zeroStock) {
+            this.version = version;
+            this.items = partial.items;
+            this.totalAmount = partial.amount;
+            this.totalValueCents = partial.value;
+            List<Group> descriptions = new ArrayList<>(partial.groups.values());
+            descriptions.sort((a, b) -> Long.compare(b.valueCents, a.valueCents));
+            this.descriptions = Collections.unmodifiableList(descriptions);
+            this.priceBands = Collections.unmodifiableList(priceBands);
+            this.topItems = Collections.unmodifiableList(topItems);
+            this.zeroStockCount = partial.zeroCount;
+            this.zeroStock = Collections.unmodifiableList(zeroStock);
+        }
+
+        public long getVersion() { return version; }
+        public long getItems() { return items; }
+        public long getTotalAmount() { return totalAmount; }
+        public long getTotalValueCents() { return totalValueCents; }
+        public double getTotalValue() { return Money.toPrice(totalValueCents); }
+
+        // By stock value, largest first; items without a description group under ""
+        public List<Group> getDescriptions() { return descriptions; }
+
+        // In band order, empty bands included
+        public List<Group> getPriceBands() { return priceBands; }
+
+        // By stock value, largest first; equal values in slot order
+        public List<Item> getTopItems() { return topItems; }
+
+        public long getZeroStockCount() { return zeroStockCount; }
+
+        // In slot order, at most the engine's limit
+        public List<Item> getZeroStock() { return zeroStock; }
+
+        public long getNanos() { return nanos; }
+    }
+
+    public Report compute(ItemModel model) {
+        try (ItemModel.Snapshot snapshot = model.snapshot()) {
+            return compute(snapshot);
+        }
+    }
+
+    public Report compute(ItemModel.Snapshot snapshot) {
+        InventoryEvents.Report event = new InventoryEvents.Report();
+        event.begin();
+        long start = System.nanoTime();
+        Partial total = pool.invoke(new Scan(snapshot, 0, snapshot.size()));
+
+        List<Group> priceBands = new ArrayList<>(bands.length + 1);
+        for (int band = 0; band <= bands.length; band++) {
+            Group group = new Group(bandLabel(band));
+            group.items = total.bandItems[band];
+            group.amount = total.bandAmounts[band];
+            group.valueCents = total.bandValues[band];
+            priceBands.add(group);
+        }
+        List<Item> topItems = new ArrayList<>(total.topSize);
+        for (int i = 0; i < total.topSize; i++) {
+            topItems.add(snapshot.getItem(total.topSlots[i]));
+        }
+        List<Item> zeroStock = new ArrayList<>(total.zeroSize);
+        for (int i = 0; i < total.zeroSize; i++) {
+            zeroStock.add(snapshot.getItem(total.zeroSlots[i]));
+        }
+        Report report = new Report(snapshot.getVersion(), total, priceBands, topItems, zeroStock);
+        report.nanos = System.nanoTime() - start;
+        event.record(snapshot.size(), snapshot.getVersion());
+        return report;
+    }
+
+    private int band(long price) {
+        int band = 0;
+        while (band < bands.length && price >= bands[band]) {
+            band++;
+        }
+        return band;
+    }
+
+    private String bandLabel(int band) {
+        NumberFormat format = NumberFormat.getInstance();
+        if (band == 0) {
+            return "< " + format.format(Money.toPrice(bands[0]));
+        }
+        if (band == bands.length) {
+            return "\u2265 " + format.format(Money.toPrice(bands[band - 1]));
+        }
+        return format.format(Money.toPrice(bands[band - 1])) + " \u2013 " + format.format(Money.toPrice(bands[band]));
+    }
+
+    private class Scan extends RecursiveTask<Partial> {
+        private final ItemModel.Snapshot snapshot;
+        private final int from;
+        private final int to;
+
+        Scan(ItemModel.Snapshot snapshot, int from, int to) {
+            this.snapshot = snapshot;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= CHUNK) {
+                Partial partial = new Partial();
+                snapshot.scan(from, to, partial::add);
+                return partial;
+            }
+            int middle = (from + to) >>> 1;
+            Scan left = new Scan(snapshot, from, middle);
+            left.fork();
+            Partial right = new Scan(snapshot, middle, to).compute();
+            // Left before right, so the zero-stock list stays in slot order
+            return left.join().merge(right);
+        }
+    }
+
+    // One thread's share of the report
+    private class Partial {
+        final Map<String, Group> groups = new HashMap<>();
+        final long[] bandItems = new long[bands.length + 1];
+        final long[] bandAmounts = new long[bands.length + 1];
+        final long[] bandValues = new long[bands.length + 1];
+        // The best topCount so far, by value descending
+        final long[] topValues = new long[topCount];
+        final int[] topSlots = new int[topCount];
+        int topSize;
+        final int[] zeroSlots = new int[zeroStockLimit];
+        int zeroSize;
+        long zeroCount;
+        long items;
+        long amount;
+        long value;
+
+        void add(ItemModel.Snapshot.Row row) {
+            long price = row.getPriceCents();
+            int amount = row.getAmount();
+            long value = Money.value(price, amount);
+            String description = row.getDescription();
+            Group group = groups.get(description == null ? "" : description);
+            if (group == null) {
+                group = new Group(description == null ? "" : description);
+                groups.put(group.key, group);
+            }
+            group.add(amount, value);
+            int band = band(price);
+            bandItems[band]++;
+            bandAmounts[band] += amount;
+            bandValues[band] = Math.addExact(bandValues[band], value);
+            offerTop(value, row.getSlot());
+            if (amount == 0) {
+                if (zeroSize < zeroSlots.length) {
+                    zeroSlots[zeroSize++] = row.getSlot();
+                }
+                zeroCount++;
+            }
+            items++;
+            this.amount += amount;
+            this.value = Math.addExact(this.value, value);
+        }
+
+        // Kept sorted by insertion; after the first few thousand rows almost every
+        // row fails the first comparison
+        void offerTop(long value, int slot) {
+            if (topCount == 0) {
+                return;
+            }
+            if (topSize == topCount && !ranksAbove(value, slot, topValues[topSize - 1], topSlots[topSize - 1])) {
+                return;
+            }
+            int at = topSize == topCount ? topSize - 1 : topSize++;
+            while (at > 0 && ranksAbove(value, slot, topValues[at - 1], topSlots[at - 1])) {
+                topValues[at] = topValues[at - 1];
+                topSlots[at] = topSlots[at - 1];
+                at--;
+            }
+            topValues[at] = value;
+            topSlots[at] = slot;
+        }
+
+        Partial merge(Partial other) {
+            for (Group group : other.groups.values()) {
+                Group mine = groups.putIfAbsent(group.key, group);
+                if (mine != null) {
+                    mine.add(group);
+                }
+            }
+            for (int band = 0; band <= bands.length; band++) {
+                bandItems[band] += other.bandItems[band];
+                bandAmounts[band] += other.bandAmounts[band];
+                bandValues[band] = Math.addExact(bandValues[band], other.bandValues[band]);
+            }
+            for (int i = 0; i < other.topSize; i++) {
+                offerTop(other.topValues[i], other.topSlots[i]);
+            }
+            int copy = Math.min(other.zeroSize, zeroSlots.length - zeroSize);
+            System.arraycopy(other.zeroSlots, 0, zeroSlots, zeroSize, copy);
+            zeroSize += copy;
+            zeroCount += other.zeroCount;
+            items += other.items;
+            amount += other.amount;
+            value = Math.addExact(value, other.value);
+            return this;
+        }
+    }
+
+    private static boolean ranksAbove(long value, int slot, long otherValue, int otherSlot) {
+        int byValue = Long.compare(value, otherValue);
+        return byValue > 0 || byValue == 0 && slot < otherSlot;
+    }
+}
@@ -0,0 +1,181 @@
+package com.lab;
+
+import javax.swing.JPanel;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JScrollPane;
+import javax.swing.JTabbedPane;
+import javax.swing.JTable;
+import javax.swing.SwingWorker;
+import javax.swing.BorderFactory;
+import javax.swing.table.AbstractTableModel;
+import java.awt.BorderLayout;
+import java.awt.GridLayout;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+public class ReportView extends JPanel {
+    private MainController controller;
+    private ItemModel model;
+    private ReportEngine engine = new ReportEngine();
+    private JLabel totalAmountValue;
+    private JLabel totalPriceValue;
+    private JLabel statusLabel;
+    private JTabbedPane tabs;
+    private Rows descriptions = new Rows("Description", "Items", "Amount", "Value");
+    private Rows priceBands = new Rows("Price Band", "Items", "Amount", "Value");
+    private Rows topItems = new Rows("Name", "Description", "Price", "Amount", "Value");
+    private Rows zeroStock = new Rows("Name", "Description", "Price");
+    // The breakdown being computed; a refresh meanwhile marks it stale, and it runs
+    // once more when done, so a burst of edits costs at most two passes
+    private SwingWorker<ReportEngine.Report, Void> worker;
+    private boolean stale;
+
+    public ReportView(MainController controller, ItemModel model) {
+        this.controller = controller;
+        this.model = model;
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+
+        totalAmountValue = new JLabel();
+        totalPriceValue = new JLabel();
+
+        JButton okBtn = new JButton("OK");
+        okBtn.addActionListener(e -> controller.returnToDashboard());
+
+        JPanel totals = new JPanel(new GridLayout(2, 2, 10, 10));
+        totals.add(new JLabel("Total Amount"));
+        totals.add(totalAmountValue);
+        totals.add(new JLabel("Total Price"));
+        totals.add(totalPriceValue);
+
+        tabs = new JTabbedPane();
+        tabs.addTab("By Description", table(descriptions));
+        tabs.addTab("Price Bands", table(priceBands));
+        tabs.addTab("Top Items", table(topItems));
+        tabs.addTab("Out of Stock", table(zeroStock));
+
+        statusLabel = new JLabel();
+        JPanel bottom = new JPanel(new BorderLayout());
+        bottom.add(statusLabel, BorderLayout.CENTER);
+        bottom.add(okBtn, BorderLayout.EAST);
+
+        add(totals, BorderLayout.NORTH);
+        add(tabs, BorderLayout.CENTER);
+        add(bottom, BorderLayout.SOUTH);
+    }
+
+    private static JScrollPane table(Rows rows) {
+        JTable table = new JTable(rows);
+        table.setDefaultRenderer(String.class, new TextCellRenderer());
+        table.setDefaultRenderer(Double.class, NumberCellRenderer.decimal());
+        table.setDefaultRenderer(Long.class, NumberCellRenderer.integer());
+        table.setDefaultRenderer(Integer.class, NumberCellRenderer.integer());
+        return new JScrollPane(table);
+    }
+
+    // The model keeps the totals up to date, so they are O(1) whatever the inventory
+    // size, and shown right away. Both come from one snapshot, so a concurrent write
+    // cannot land between them. The breakdowns need a pass over every item and
+    // follow from a worker.
+    public void refresh() {
+        try (ItemModel.Snapshot snapshot = model.snapshot()) {
+            totalAmountValue.setText(String.valueOf(snapshot.getTotalAmount()));
+            totalPriceValue.setText(Money.format(snapshot.getTotalCents()));
+        }
+        computeBreakdowns();
+    }
+
+    private void computeBreakdowns() {
+        if (worker != null) {
+            stale = true;
+            return;
+        }
+        worker = new SwingWorker<>() {
+            @Override
+            protected ReportEngine.Report doInBackground() {
+                return engine.compute(model);
+            }
+
+            @Override
+            protected void done() {
+                worker = null;
+                try {
+                    show(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    statusLabel.setText("Could not compute the breakdowns: " + e.getMessage());
+                }
+                if (stale) {
+                    stale = false;
+                    computeBreakdowns();
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    private void show(ReportEngine.Report report) {
+        List<Object[]> rows = new ArrayList<>();
+        for (ReportEngine.Group group : report.getDescriptions()) {
+            rows.add(new Object[] { group.getKey(), group.getItems(), group.getAmount(), group.getValue() });
+        }
+        descriptions.setRows(rows);
+
+        rows = new ArrayList<>();
+        for (ReportEngine.Group group : report.getPriceBands()) {
+            rows.add(new Object[] { group.getKey(), group.getItems(), group.getAmount(), group.getValue() });
+        }
+        priceBands.setRows(rows);
+
+        rows = new ArrayList<>();
+        for (Item item : report.getTopItems()) {
+            rows.add(new Object[] { item.getName(), item.getDescription(), item.getPrice(), item.getAmount(),
+                    Money.toPrice(Money.value(item.getPriceCents(), item.getAmount())) });
+        }
+        topItems.setRows(rows);
+
+        rows = new ArrayList<>();
+        for (Item item : report.getZeroStock()) {
+            rows.add(new Object[] { item.getName(), item.getDescription(), item.getPrice() });
+        }
+        zeroStock.setRows(rows);
+        tabs.setTitleAt(3, "Out of Stock (" + report.getZeroStockCount() + ")");
+
+        statusLabel.setText(String.format("%,d items grouped in %.1f ms", report.getItems(),
+                report.getNanos() / 1e6));
+    }
+
+    // A fixed set of rows for one breakdown; column classes come from the first row
+    private static class Rows extends AbstractTableModel {
+        private final String[] columns;
+        private List<Object[]> rows = List.of();
+
+        Rows(String... columns) {
+            this.columns = columns;
+        }
+
+        void setRows(List<Object[]> rows) {
+            this.rows = rows;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() { return rows.size(); }
+
+        @Override
+        public int getColumnCount() { return columns.length; }
+
+        @Override
+        public String getColumnName(int column) { return columns[column]; }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            Object value = rows.isEmpty() ? null : rows.get(0)[column];
+            return value == null ? String.class : value.getClass();
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) { return rows.get(row)[column]; }
+    }
+}
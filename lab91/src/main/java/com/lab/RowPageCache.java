@@ -0,0 +1,189 @@
+package com.lab;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// The dashboard's slot view, read from the model a page of rows at a time and kept
+// in an LRU cache of a fixed number of pages. Only the pages around the viewport are
+// on the heap, however many rows the inventory has; over a MappedItemStore the rest
+// stay on disk. Pages ahead of the scroll direction are read in the background, so
+// scrolling mostly finds its rows loaded instead of faulting them in on the EDT.
+//
+// Pages are tagged with the version of the snapshot they were read from, and read
+// again once the table has moved on to a newer one.
+public class RowPageCache {
+    // Pages read ahead of the viewport; the cache must hold these and the visible ones
+    public static final int PREFETCH_PAGES = 2;
+
+    private final ItemModel model;
+    private final int pageRows;
+    private final int capacity;
+    // Access-ordered, so the eldest entry is the least recently used page
+    private final Map<Integer, Page> pages;
+    // Queued for the reader, so a scroll does not queue a page twice
+    private final Set<Integer> pending = new HashSet<>();
+    // At most one thread, which exits when idle, so a dashboard needs no closing
+    private final ExecutorService reader;
+
+    // The version the table last asked for and the pages it last had in view
+    private long version = -1;
+    private int firstVisible;
+    private int lastVisible;
+    private long hits;
+    private long misses;
+
+    public RowPageCache(ItemModel model, int pageRows, int capacity) {
+        if (pageRows < 1 || capacity < PREFETCH_PAGES + 2) {
+            throw new IllegalArgumentException("Need at least 1 row per page and " + (PREFETCH_PAGES + 2)
+                    + " pages, not " + pageRows + " and " + capacity);
+        }
+        this.model = model;
+        this.pageRows = pageRows;
+        this.capacity = capacity;
+        pages = new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Page> eldest) {
+                return size() > RowPageCache.this.capacity;
+            }
+        };
+        reader = new ThreadPoolExecutor(0, 1, 5, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, "inventory-page-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getPageRows() { return pageRows; }
+
+    public int getCapacity() { return capacity; }
+
+    // Pages held right now
+    public synchronized int size() { return pages.size(); }
+
+    public synchronized long getHits() { return hits; }
+
+    public synchronized long getMisses() { return misses; }
+
+    // The page holding `row` as of the snapshot, read on the calling thread on a miss
+    public synchronized Page page(ItemModel.Snapshot snapshot, int row) {
+        int index = row / pageRows;
+        version = snapshot.getVersion();
+        Page page = pages.get(index);
+        if (page != null && page.version == version) {
+            hits++;
+            return page;
+        }
+        misses++;
+        page = read(snapshot, index);
+        pages.put(index, page);
+        return page;
+    }
+
+    // Called as the viewport moves over rows [firstRow, lastRow] of the snapshot;
+    // queues the pages just past it on the side it is moving towards
+    public synchronized void prefetch(ItemModel.Snapshot snapshot, int firstRow, int lastRow) {
+        int first = firstRow / pageRows;
+        int last = lastRow / pageRows;
+        boolean up = first < firstVisible;
+        firstVisible = first;
+        lastVisible = last;
+        version = snapshot.getVersion();
+        int pageCount = (snapshot.size() + pageRows - 1) / pageRows;
+        for (int i = 1; i <= PREFETCH_PAGES; i++) {
+            int index = up ? first - i : last + i;
+            if (index < 0 || index >= pageCount) {
+                break;
+            }
+            Page page = pages.get(index);
+            if ((page == null || page.version != version) && pending.add(index)) {
+                long wanted = version;
+                reader.execute(() -> readAhead(index, wanted));
+            }
+        }
+    }
+
+    // On the reader thread, through a snapshot of its own: the table's may be closed
+    // by a refresh at any time
+    private void readAhead(int index, long wanted) {
+        try {
+            synchronized (this) {
+                // Scrolled on or written to while this was queued
+                if (version != wanted || index < firstVisible - PREFETCH_PAGES
+                        || index > lastVisible + PREFETCH_PAGES) {
+                    return;
+                }
+            }
+            try (ItemModel.Snapshot snapshot = model.snapshot()) {
+                if (snapshot.getVersion() != wanted) {
+                    return;
+                }
+                Page page = read(snapshot, index);
+                synchronized (this) {
+                    if (version == wanted) {
+                        pages.put(index, page);
+                    }
+                }
+            }
+        } finally {
+            synchronized (this) {
+                pending.remove(index);
+            }
+        }
+    }
+
+    // One scan under one read lock, rather than a lock per cell
+    private Page read(ItemModel.Snapshot snapshot, int index) {
+        int first = index * pageRows;
+        Page page = new Page(snapshot.getVersion(), first, Math.min(pageRows, snapshot.size() - first));
+        snapshot.scan(first, first + page.length, row -> {
+            int i = row.getSlot() - first;
+            page.ids[i] = row.getId();
+            page.names[i] = row.getName();
+            page.descriptions[i] = row.getDescription();
+            page.priceCents[i] = row.getPriceCents();
+            page.amounts[i] = row.getAmount();
+        });
+        return page;
+    }
+
+    // Consecutive rows of one snapshot, addressed by their row number in it
+    public static class Page {
+        private final long version;
+        private final int first;
+        private final int length;
+        private final long[] ids;
+        private final String[] names;
+        private final String[] descriptions;
+        private final long[] priceCents;
+        private final int[] amounts;
+
+        private Page(long version, int first, int length) {
+            this.version = version;
+            this.first = first;
+            this.length = length;
+            ids = new long[length];
+            names = new String[length];
+            descriptions = new String[length];
+            priceCents = new long[length];
+            amounts = new int[length];
+        }
+
+        public long getVersion() { return version; }
+
+        public long getId(int row) { return ids[row - first]; }
+
+        public String getName(int row) { return names[row - first]; }
+
+        public String getDescription(int row) { return descriptions[row - first]; }
+
+        public long getPriceCents(int row) { return priceCents[row - first]; }
+
+        public int getAmount(int row) { return amounts[row - first]; }
+    }
+}
@@ -0,0 +1,23 @@
+package com.lab;
+
+// The reference kernel, one row at a time, with every product and sum checked
+public class ScalarTotalsKernel implements TotalsKernel {
+    @Override
+    public void accumulate(long[] prices, int[] amounts, int length, ColumnTotals into) {
+        long amount = 0;
+        long value = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < length; i++) {
+            long price = prices[i];
+            amount += amounts[i];
+            value = Math.addExact(value, Money.value(price, amounts[i]));
+            min = Math.min(min, price);
+            max = Math.max(max, price);
+        }
+        into.add(length, amount, value, min, max);
+    }
+
+    @Override
+    public String name() { return "scalar"; }
+}
@@ -0,0 +1,340 @@
+package com.lab;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Case-insensitive full-text index over item names and descriptions, kept up to
+// date by ItemModel on every add, update and delete.
+//
+// Every item gets a document number, and every gram (a lowercased trigram, or the
+// first one or two characters of a word) maps to a sorted posting list of them.
+// A query word of three characters or more matches as a substring: candidates are
+// the intersection of its trigram postings, checked against the text when the word
+// is longer than one trigram. Shorter words match the start of a word.
+//
+// Document numbers only ever grow, so appending keeps postings sorted. An update
+// retires the old number and hands out a new one; retired numbers are skipped by
+// queries and dropped when they outnumber the live ones.
+//
+// The check against the text runs on a lowercased UTF-8 copy kept in the index,
+// which is a byte scan rather than decoding both strings out of the store.
+public class SearchIndex {
+    private static final long TRIGRAM = 3L << 48;
+    private static final long PREFIX = 2L << 48;
+    private static final int TEXT_PAGE_SIZE = 1 << 20;
+
+    private LongIntHashMap gramIndex = new LongIntHashMap();
+    private int[][] postings = new int[1024][];
+    private int[] postingSizes = new int[1024];
+    private int grams;
+
+    // Item ID per document number; 0 once the document is retired
+    private long[] documentIds = new long[1024];
+    private int documents;
+    private int retired;
+    private LongIntHashMap documentById;
+
+    // Lowercased "name\ndescription" per document: page << 32 | offset, and length
+    private byte[][] textPages = new byte[16][];
+    private int textPageCount;
+    private int textPosition = TEXT_PAGE_SIZE;
+    private long[] textRefs = new long[1024];
+    private int[] textLengths = new int[1024];
+
+    // Reused while indexing one item
+    private long[] itemGrams = new long[64];
+
+    // Reads a snapshot a chunk of rows at a time, so ItemModel builds it without
+    // holding up readers or writers; it then replays what was written meanwhile
+    SearchIndex(ItemModel.Snapshot snapshot) {
+        int size = snapshot.size();
+        documentById = new LongIntHashMap(size);
+        for (int from = 0; from < size; from += ItemModel.SCAN_ROWS) {
+            snapshot.scan(from, Math.min(size, from + ItemModel.SCAN_ROWS),
+                    row -> add(row.getId(), row.getName(), row.getDescription()));
+        }
+    }
+
+    public int size() { return documentById.size(); }
+
+    void add(long id, String name, String description) {
+        int n = collect(name, 0);
+        n = collect(description, n);
+        Arrays.sort(itemGrams, 0, n);
+        int document = documents++;
+        if (document == documentIds.length) {
+            documentIds = Arrays.copyOf(documentIds, document * 2);
+            textRefs = Arrays.copyOf(textRefs, document * 2);
+            textLengths = Arrays.copyOf(textLengths, document * 2);
+        }
+        documentIds[document] = id;
+        String text = lowerCase((name == null ? "" : name) + "\n" + (description == null ? "" : description));
+        storeText(document, text.getBytes(StandardCharsets.UTF_8));
+        documentById.put(id, document);
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || itemGrams[i] != itemGrams[i - 1]) {
+                append(itemGrams[i], document);
+            }
+        }
+    }
+
+    void remove(long id) {
+        int document = documentById.remove(id);
+        if (document == -1) {
+            return;
+        }
+        documentIds[document] = 0;
+        retired++;
+        if (retired > 1024 && retired > documentById.size()) {
+            compact();
+        }
+    }
+
+    void update(long id, String name, String description) {
+        remove(id);
+        add(id, name, description);
+    }
+
+    // IDs of the items matching every word of the query, or null for a blank query
+    public long[] search(String query) {
+        String[] words = lowerCase(query.strip()).split("\\s+");
+        if (words[0].isEmpty()) {
+            return null;
+        }
+        // The grams of all words together, intersected smallest posting first
+        // so every intermediate result is small
+        int[] lists = new int[16];
+        int count = 0;
+        boolean verify = false;
+        for (String word : words) {
+            int wordGrams = word.length() < 3 ? 1 : word.length() - 2;
+            for (int i = 0; i < wordGrams; i++) {
+                long gram = word.length() < 3 ? prefixGram(word) : trigram(word, i);
+                int index = gramIndex.get(gram);
+                if (index == -1) {
+                    return new long[0];
+                }
+                if (count == lists.length) {
+                    lists = Arrays.copyOf(lists, count * 2);
+                }
+                lists[count++] = index;
+            }
+            verify |= word.length() > 3;
+        }
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = (long) postingSizes[lists[i]] << 32 | lists[i];
+        }
+        Arrays.sort(order);
+        int first = (int) order[0];
+        int[] candidates = Arrays.copyOf(postings[first], postingSizes[first]);
+        int size = candidates.length;
+        for (int i = 1; i < count && size > 0; i++) {
+            int index = (int) order[i];
+            if (index != (int) order[i - 1]) {
+                size = intersect(candidates, size, postings[index], postingSizes[index]);
+            }
+        }
+        byte[][] encoded = new byte[words.length][];
+        for (int i = 0; i < words.length; i++) {
+            // Shorter words are already exact, so they need no check
+            encoded[i] = words[i].length() > 3 ? words[i].getBytes(StandardCharsets.UTF_8) : null;
+        }
+        long[] ids = new long[size];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            int document = candidates[i];
+            long id = documentIds[document];
+            if (id != 0 && (!verify || containsAll(document, encoded))) {
+                ids[n++] = id;
+            }
+        }
+        return n == ids.length ? ids : Arrays.copyOf(ids, n);
+    }
+
+    // Rules out words whose trigrams all occur, but not next to each other.
+    // UTF-8 is self-synchronising, so a byte match is a character match.
+    private boolean containsAll(int document, byte[][] words) {
+        long ref = textRefs[document];
+        byte[] page = textPages[(int) (ref >>> 32)];
+        int from = (int) ref;
+        int to = from + textLengths[document];
+        for (byte[] word : words) {
+            if (word != null && !contains(page, from, to, word)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(byte[] text, int from, int to, byte[] word) {
+        byte first = word[0];
+        int last = to - word.length;
+        for (int start = from; start <= last; start++) {
+            if (text[start] != first) {
+                continue;
+            }
+            int i = 1;
+            while (i < word.length && text[start + i] == word[i]) {
+                i++;
+            }
+            if (i == word.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void storeText(int document, byte[] text) {
+        if (textPosition + text.length > TEXT_PAGE_SIZE || textPageCount == 0) {
+            if (textPageCount == textPages.length) {
+                textPages = Arrays.copyOf(textPages, textPageCount * 2);
+            }
+            // A text longer than a page gets a page of its own
+            textPages[textPageCount++] = new byte[Math.max(TEXT_PAGE_SIZE, text.length)];
+            textPosition = 0;
+        }
+        System.arraycopy(text, 0, textPages[textPageCount - 1], textPosition, text.length);
+        textRefs[document] = (long) (textPageCount - 1) << 32 | textPosition;
+        textLengths[document] = text.length;
+        textPosition += text.length;
+    }
+
+    // Char by char, exactly as the grams are lowercased (String.toLowerCase can change the length)
+    private static String lowerCase(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    // Keeps the first aSize entries of a that also occur in b, in place; returns
+    // how many remain. Gallops through b, so a short a against a long b is cheap.
+    private static int intersect(int[] a, int aSize, int[] b, int bSize) {
+        int n = 0;
+        int from = 0;
+        for (int i = 0; i < aSize && from < bSize; i++) {
+            int target = a[i];
+            int step = 1;
+            int hi = from;
+            while (hi < bSize && b[hi] < target) {
+                from = hi + 1;
+                hi += step;
+                step <<= 1;
+            }
+            int found = Arrays.binarySearch(b, from, Math.min(hi + 1, bSize), target);
+            if (found >= 0) {
+                a[n++] = target;
+                from = found + 1;
+            } else {
+                from = -found - 1;
+            }
+        }
+        return n;
+    }
+
+    private int collect(String text, int n) {
+        if (text == null) {
+            return n;
+        }
+        int length = text.length();
+        char previous = ' ';
+        for (int i = 0; i < length; i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (!Character.isLetterOrDigit(previous) && Character.isLetterOrDigit(c)) {
+                n = addGram(n, prefixGram(c, i + 1 < length ? Character.toLowerCase(text.charAt(i + 1)) : 0));
+                n = addGram(n, prefixGram(c, (char) 0));
+            }
+            if (i + 2 < length) {
+                n = addGram(n, trigram(c, Character.toLowerCase(text.charAt(i + 1)),
+                        Character.toLowerCase(text.charAt(i + 2))));
+            }
+            previous = c;
+        }
+        return n;
+    }
+
+    private int addGram(int n, long gram) {
+        if (n == itemGrams.length) {
+            itemGrams = Arrays.copyOf(itemGrams, n * 2);
+        }
+        itemGrams[n] = gram;
+        return n + 1;
+    }
+
+    private static long trigram(String word, int at) {
+        return trigram(word.charAt(at), word.charAt(at + 1), word.charAt(at + 2));
+    }
+
+    private static long trigram(char first, char second, char third) {
+        return TRIGRAM | (long) first << 32 | (long) second << 16 | third;
+    }
+
+    private static long prefixGram(String word) {
+        return prefixGram(word.charAt(0), word.length() > 1 ? word.charAt(1) : 0);
+    }
+
+    private static long prefixGram(char first, char second) {
+        return PREFIX | (long) first << 16 | second;
+    }
+
+    private void append(long gram, int document) {
+        int index = gramIndex.get(gram);
+        if (index == -1) {
+            index = grams++;
+            if (index == postings.length) {
+                postings = Arrays.copyOf(postings, index * 2);
+                postingSizes = Arrays.copyOf(postingSizes, index * 2);
+            }
+            postings[index] = new int[2];
+            gramIndex.put(gram, index);
+        }
+        int[] posting = postings[index];
+        int size = postingSizes[index];
+        if (size == posting.length) {
+            posting = postings[index] = Arrays.copyOf(posting, size + (size >> 1) + 1);
+        }
+        posting[size] = document;
+        postingSizes[index] = size + 1;
+    }
+
+    // Renumbers the live documents densely and drops retired ones from every posting.
+    // The renumbering preserves order, so postings stay sorted.
+    private void compact() {
+        int[] renumbered = new int[documents];
+        int live = 0;
+        byte[][] oldPages = textPages;
+        textPages = new byte[16][];
+        textPageCount = 0;
+        for (int document = 0; document < documents; document++) {
+            if (documentIds[document] != 0) {
+                long ref = textRefs[document];
+                int from = (int) ref;
+                storeText(live, Arrays.copyOfRange(oldPages[(int) (ref >>> 32)], from, from + textLengths[document]));
+                documentIds[live] = documentIds[document];
+                documentById.put(documentIds[live], live);
+                renumbered[document] = live++;
+            } else {
+                renumbered[document] = -1;
+            }
+        }
+        Arrays.fill(documentIds, live, documents, 0);
+        documents = live;
+        retired = 0;
+        for (int index = 0; index < grams; index++) {
+            int[] posting = postings[index];
+            int size = 0;
+            for (int i = 0; i < postingSizes[index]; i++) {
+                int document = renumbered[posting[i]];
+                if (document != -1) {
+                    posting[size++] = document;
+                }
+            }
+            postingSizes[index] = size;
+            if (size < posting.length / 4) {
+                postings[index] = Arrays.copyOf(posting, Math.max(2, size));
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.lab;
+
+import java.nio.charset.StandardCharsets;
+
+// Append-only UTF-8 storage for the columnar store's names; descriptions go
+// through StringDictionary instead. Strings are written into 1 MiB pages with a
+// varint length prefix and are addressed by (page << 32 | offset). Overwritten
+// strings become garbage until the owning store compacts the area.
+public class StringArea {
+    public static final long NULL = -1;
+
+    private static final int PAGE_SIZE = 1 << 20;
+
+    private byte[][] pages = new byte[4][];
+    private int pageCount;
+    private int position;
+    private long usedBytes;
+    private long garbageBytes;
+
+    public long append(String s) {
+        if (s == null) {
+            return NULL;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int needed = bytes.length + 5;
+        if (pageCount == 0 || position + needed > pages[pageCount - 1].length) {
+            newPage(Math.max(PAGE_SIZE, needed));
+        }
+        byte[] page = pages[pageCount - 1];
+        long address = ((long) (pageCount - 1) << 32) | position;
+        int length = bytes.length;
+        while ((length & ~0x7F) != 0) {
+            page[position++] = (byte) ((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        page[position++] = (byte) length;
+        System.arraycopy(bytes, 0, page, position, bytes.length);
+        position += bytes.length;
+        usedBytes += bytes.length;
+        return address;
+    }
+
+    public String get(long address) {
+        if (address == NULL) {
+            return null;
+        }
+        byte[] page = pages[(int) (address >>> 32)];
+        int offset = (int) address;
+        int length = byteLength(address);
+        while (page[offset++] < 0) {
+            // skip the length prefix
+        }
+        return new String(page, offset, length, StandardCharsets.UTF_8);
+    }
+
+    // Marks the string at address as no longer referenced
+    public void release(long address) {
+        if (address != NULL) {
+            garbageBytes += byteLength(address);
+        }
+    }
+
+    public long usedBytes() { return usedBytes; }
+
+    public long garbageBytes() { return garbageBytes; }
+
+    // Bytes actually allocated for pages, including unused tails
+    public long capacityBytes() {
+        long total = 0;
+        for (int i = 0; i < pageCount; i++) {
+            total += pages[i].length;
+        }
+        return total;
+    }
+
+    private int byteLength(long address) {
+        byte[] page = pages[(int) (address >>> 32)];
+        int offset = (int) address;
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = page[offset++];
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return length;
+    }
+
+    private void newPage(int size) {
+        if (pageCount == pages.length) {
+            byte[][] grown = new byte[pages.length * 2][];
+            System.arraycopy(pages, 0, grown, 0, pageCount);
+            pages = grown;
+        }
+        pages[pageCount++] = new byte[size];
+        position = 0;
+    }
+}
@@ -0,0 +1,151 @@
+package com.lab;
+
+import java.util.Arrays;
+
+// Reference-counted interning for strings that repeat across rows. Thousands of
+// items say "Developer machine"; through this they share one String, and a store
+// can keep a 4-byte code per row instead of its own copy. Reading a code back is
+// an array load, with nothing to decode.
+//
+// Every row using an entry holds one reference to it. When the last is released
+// the entry is dropped and its code handed out again, so deleting or editing rows
+// never leaves dead strings behind.
+//
+// Writers must be serialised (the stores are only written under the model's write
+// lock); get() may run alongside other readers.
+public class StringDictionary {
+    public static final int NULL = -1;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private String[] values = new String[16];
+    private int[] counts = new int[16];
+    // Codes handed out so far, including freed ones
+    private int limit;
+    private int[] free = new int[16];
+    private int freeCount;
+
+    // Open addressing from hash to code + 1; 0 marks an empty cell
+    private int[] table;
+    private int mask;
+    private int resizeAt;
+    private int size;
+
+    public StringDictionary() {
+        allocate(32);
+    }
+
+    // Distinct strings currently referenced
+    public int size() { return size; }
+
+    public String get(int code) {
+        return code == NULL ? null : values[code];
+    }
+
+    // The code for s, taking one reference to it
+    public int acquire(String s) {
+        if (s == null) {
+            return NULL;
+        }
+        int i = index(s.hashCode());
+        for (int cell; (cell = table[i]) != 0; i = (i + 1) & mask) {
+            if (values[cell - 1].equals(s)) {
+                counts[cell - 1]++;
+                return cell - 1;
+            }
+        }
+        int code = freeCount > 0 ? free[--freeCount] : limit++;
+        if (code == values.length) {
+            values = Arrays.copyOf(values, code * 2);
+            counts = Arrays.copyOf(counts, code * 2);
+        }
+        values[code] = s;
+        counts[code] = 1;
+        table[i] = code + 1;
+        if (++size > resizeAt) {
+            rehash(table.length << 1);
+        }
+        return code;
+    }
+
+    // The shared instance equal to s, taking one reference to it
+    public String intern(String s) {
+        return get(acquire(s));
+    }
+
+    // The code for s without taking a reference, or NULL if it has none
+    public int codeOf(String s) {
+        if (s == null) {
+            return NULL;
+        }
+        for (int i = index(s.hashCode()), cell; (cell = table[i]) != 0; i = (i + 1) & mask) {
+            if (values[cell - 1].equals(s)) {
+                return cell - 1;
+            }
+        }
+        return NULL;
+    }
+
+    public void release(int code) {
+        if (code == NULL || --counts[code] > 0) {
+            return;
+        }
+        int i = index(values[code].hashCode());
+        while (table[i] != code + 1) {
+            i = (i + 1) & mask;
+        }
+        // Backward-shift deletion, as in LongIntHashMap
+        int gap = i;
+        i = (i + 1) & mask;
+        for (int cell; (cell = table[i]) != 0; i = (i + 1) & mask) {
+            int home = index(values[cell - 1].hashCode());
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                table[gap] = cell;
+                gap = i;
+            }
+        }
+        table[gap] = 0;
+        values[code] = null;
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, freeCount * 2);
+        }
+        free[freeCount++] = code;
+        size--;
+    }
+
+    // Rough heap held by the entries and their strings, in bytes
+    public long estimatedBytes() {
+        long bytes = 4L * (values.length + counts.length + free.length + table.length);
+        for (int code = 0; code < limit; code++) {
+            if (values[code] != null) {
+                // String header plus its byte array, assuming Latin-1
+                bytes += 24 + 16 + (values[code].length() + 7 & ~7);
+            }
+        }
+        return bytes;
+    }
+
+    private int index(int hash) {
+        int h = hash * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        table = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        int[] old = table;
+        allocate(capacity);
+        for (int cell : old) {
+            if (cell != 0) {
+                int i = index(values[cell - 1].hashCode());
+                while (table[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = cell;
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.lab;
+
+import javax.swing.plaf.basic.BasicGraphicsUtils;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Insets;
+
+// A table cell is a background, a border and one string, so paint() draws just
+// that, on the Graphics the table hands in. JLabel's own paint makes two copies of
+// it and lays the label out with fresh Rectangles, for every cell of every frame.
+// Text too wide for the cell still goes through JLabel, which shortens it.
+public class TextCellRenderer extends DefaultTableCellRenderer {
+    private final Insets insets = new Insets(0, 0, 0, 0);
+
+    @Override
+    public void paint(Graphics g) {
+        String text = getText();
+        if (text == null || text.isEmpty() || getIcon() != null || !(g instanceof Graphics2D)) {
+            super.paint(g);
+            return;
+        }
+        FontMetrics metrics = getFontMetrics(getFont());
+        getInsets(insets);
+        int width = getWidth() - insets.left - insets.right;
+        int textWidth = metrics.stringWidth(text);
+        if (textWidth > width) {
+            super.paint(g);
+            return;
+        }
+        if (isOpaque()) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+        }
+        paintBorder(g);
+        g.setColor(getForeground());
+        g.setFont(getFont());
+        int height = getHeight() - insets.top - insets.bottom;
+        int baseline = insets.top + (height - metrics.getHeight()) / 2 + metrics.getAscent();
+        int x = getHorizontalAlignment() == RIGHT ? insets.left + width - textWidth : insets.left;
+        BasicGraphicsUtils.drawString(this, (Graphics2D) g, text, x, baseline);
+    }
+}
@@ -0,0 +1,35 @@
+package com.lab;
+
+// Sums stretches of the price and amount columns. The scalar kernel always works;
+// a Vector API one is built by the simd profile (src/simd/java) and used when the
+// JVM runs with --add-modules jdk.incubator.vector. -Dinventory.simd=false turns it off.
+public interface TotalsKernel {
+    // Adds rows [0, length) of the two columns to `into`, prices in cents. Throws
+    // ArithmeticException if the stock value does not fit in a long.
+    void accumulate(long[] prices, int[] amounts, int length, ColumnTotals into);
+
+    String name();
+
+    TotalsKernel BEST = best();
+
+    private static TotalsKernel best() {
+        if (!Boolean.parseBoolean(System.getProperty("inventory.simd", "true"))) {
+            return new ScalarTotalsKernel();
+        }
+        TotalsKernel vector = vector();
+        return vector != null ? vector : new ScalarTotalsKernel();
+    }
+
+    // The Vector API kernel, or null if it was not built or its module is not loaded
+    static TotalsKernel vector() {
+        try {
+            TotalsKernel kernel = (TotalsKernel) Class.forName("com.lab.VectorTotalsKernel")
+                    .getDeclaredConstructor().newInstance();
+            // Links the incubator classes now rather than on the first real call
+            kernel.accumulate(new long[] { 1 }, new int[] { 1 }, 1, new ColumnTotals());
+            return kernel;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
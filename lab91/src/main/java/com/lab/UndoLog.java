@@ -0,0 +1,223 @@
+package com.lab;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+// Undo/redo history of the edits made through MainController. Entries are deltas:
+// an update keeps only the fields it changed, before and after, and adds and
+// deletes keep their rows in flat arrays rather than as Items. Undoing or redoing
+// one entry is one batch, so a bulk delete comes back as one model event.
+//
+// Both stacks together stay within a byte budget; the oldest entries go first.
+public class UndoLog {
+    private final long budgetBytes;
+    private final Deque<Command> undo = new ArrayDeque<>();
+    private final Deque<Command> redo = new ArrayDeque<>();
+    private long bytes;
+
+    public UndoLog(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    public boolean canUndo() { return !undo.isEmpty(); }
+
+    public boolean canRedo() { return !redo.isEmpty(); }
+
+    // Entries that can still be undone
+    public int size() { return undo.size(); }
+
+    // Estimated heap held by both stacks
+    public long getBytes() { return bytes; }
+
+    // `item` must already carry the ID the model gave it
+    public void recordAdd(Item item) {
+        push(new Rows(true, List.of(item)));
+    }
+
+    public void recordUpdate(Item before, String name, String description, double price, int amount) {
+        Update update = new Update(before, name, description, price, amount);
+        if (update.changed != 0) {
+            push(update);
+        }
+    }
+
+    public void recordDelete(List<Item> before) {
+        if (!before.isEmpty()) {
+            push(new Rows(false, before));
+        }
+    }
+
+    // Returns false if there was nothing to undo
+    public boolean undo(ItemModel model) {
+        return move(undo, redo, model, true);
+    }
+
+    public boolean redo(ItemModel model) {
+        return move(redo, undo, model, false);
+    }
+
+    public void clear() {
+        undo.clear();
+        redo.clear();
+        bytes = 0;
+    }
+
+    // The entry only changes stacks once its batch has committed: if the model refuses
+    // it (a failed journal, an overflowing total) it can still be undone or redone later
+    private boolean move(Deque<Command> from, Deque<Command> to, ItemModel model, boolean undoing) {
+        Command command = from.peekLast();
+        if (command == null) {
+            return false;
+        }
+        ItemModel.Batch batch = model.beginBatch();
+        command.apply(batch, model, undoing);
+        batch.commit();
+        from.pollLast();
+        to.addLast(command);
+        return true;
+    }
+
+    // A new edit forks the history, so whatever could be redone is gone
+    private void push(Command command) {
+        for (Command dropped : redo) {
+            bytes -= dropped.bytes();
+        }
+        redo.clear();
+        undo.addLast(command);
+        bytes += command.bytes();
+        while (bytes > budgetBytes && !undo.isEmpty()) {
+            bytes -= undo.pollFirst().bytes();
+        }
+    }
+
+    private static long stringBytes(String s) {
+        return s == null ? 0 : 40 + s.length();
+    }
+
+    private abstract static class Command {
+        abstract void apply(ItemModel.Batch batch, ItemModel model, boolean undoing);
+
+        abstract long bytes();
+    }
+
+    // Rows that were added (undo deletes them) or deleted (undo restores them
+    // under their old IDs)
+    private static class Rows extends Command {
+        private final boolean added;
+        private final long[] ids;
+        private final String[] names;
+        private final String[] descriptions;
+        private final double[] prices;
+        private final int[] amounts;
+
+        Rows(boolean added, List<Item> items) {
+            this.added = added;
+            int n = items.size();
+            ids = new long[n];
+            names = new String[n];
+            descriptions = new String[n];
+            prices = new double[n];
+            amounts = new int[n];
+            for (int i = 0; i < n; i++) {
+                Item item = items.get(i);
+                ids[i] = item.getId();
+                names[i] = item.getName();
+                descriptions[i] = item.getDescription();
+                prices[i] = item.getPrice();
+                amounts[i] = item.getAmount();
+            }
+        }
+
+        @Override
+        void apply(ItemModel.Batch batch, ItemModel model, boolean undoing) {
+            boolean insert = added != undoing;
+            for (int i = 0; i < ids.length; i++) {
+                if (insert) {
+                    batch.restore(ids[i], names[i], descriptions[i], prices[i], amounts[i]);
+                } else {
+                    batch.delete(ids[i]);
+                }
+            }
+        }
+
+        @Override
+        long bytes() {
+            long total = 64 + ids.length * (8L + 8 + 8 + 8 + 4);
+            for (int i = 0; i < ids.length; i++) {
+                total += stringBytes(names[i]) + stringBytes(descriptions[i]);
+            }
+            return total;
+        }
+    }
+
+    // Only the fields the edit changed. Undo puts back just those, so a change to
+    // another field made since (by a scanner, say) is kept.
+    private static class Update extends Command {
+        private static final int NAME = 1;
+        private static final int DESCRIPTION = 2;
+        private static final int PRICE = 4;
+        private static final int AMOUNT = 8;
+
+        private final long id;
+        private final int changed;
+        private String nameBefore;
+        private String nameAfter;
+        private String descriptionBefore;
+        private String descriptionAfter;
+        private double priceBefore;
+        private double priceAfter;
+        private int amountBefore;
+        private int amountAfter;
+
+        Update(Item before, String name, String description, double price, int amount) {
+            id = before.getId();
+            int mask = 0;
+            if (!equal(before.getName(), name)) {
+                mask |= NAME;
+                nameBefore = before.getName();
+                nameAfter = name;
+            }
+            if (!equal(before.getDescription(), description)) {
+                mask |= DESCRIPTION;
+                descriptionBefore = before.getDescription();
+                descriptionAfter = description;
+            }
+            if (Double.compare(before.getPrice(), price) != 0) {
+                mask |= PRICE;
+                priceBefore = before.getPrice();
+                priceAfter = price;
+            }
+            if (before.getAmount() != amount) {
+                mask |= AMOUNT;
+                amountBefore = before.getAmount();
+                amountAfter = amount;
+            }
+            changed = mask;
+        }
+
+        @Override
+        void apply(ItemModel.Batch batch, ItemModel model, boolean undoing) {
+            Item current = model.getItem(id);
+            if (current == null) {
+                return; // deleted since; nothing to put the fields back on
+            }
+            batch.update(id,
+                    (changed & NAME) != 0 ? (undoing ? nameBefore : nameAfter) : current.getName(),
+                    (changed & DESCRIPTION) != 0 ? (undoing ? descriptionBefore : descriptionAfter)
+                            : current.getDescription(),
+                    (changed & PRICE) != 0 ? (undoing ? priceBefore : priceAfter) : current.getPrice(),
+                    (changed & AMOUNT) != 0 ? (undoing ? amountBefore : amountAfter) : current.getAmount());
+        }
+
+        @Override
+        long bytes() {
+            return 72 + stringBytes(nameBefore) + stringBytes(nameAfter) + stringBytes(descriptionBefore)
+                    + stringBytes(descriptionAfter);
+        }
+
+        private static boolean equal(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.lab;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+// TotalsKernel on the Vector API: a lane per row, the widest the CPU has. Amounts
+// are widened to longs alongside the cent prices, and every lane sums exactly, so
+// the result is the scalar kernel's to the cent. Two sets of accumulators keep
+// two additions in flight per cycle.
+//
+// Lanes cannot trap on overflow, so the loop also tracks the largest amount. If
+// the largest price times the largest amount times the row count stays below
+// 2^62, no product or partial sum can have wrapped; otherwise, which takes prices
+// or stock far beyond any real inventory, the stretch is redone by the checked
+// scalar kernel.
+//
+// Only on the source path with the simd profile: the incubator module is not
+// resolved by default, so this class is loaded by name from TotalsKernel.
+public class VectorTotalsKernel implements TotalsKernel {
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    // As many int lanes as there are long lanes
+    private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class,
+            VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+    private static final double SAFE = 0x1p62;
+
+    private final ScalarTotalsKernel scalar = new ScalarTotalsKernel();
+
+    @Override
+    public void accumulate(long[] prices, int[] amounts, int length, ColumnTotals into) {
+        int lanes = LONGS.length();
+        LongVector value0 = LongVector.zero(LONGS);
+        LongVector value1 = LongVector.zero(LONGS);
+        LongVector amount0 = LongVector.zero(LONGS);
+        LongVector amount1 = LongVector.zero(LONGS);
+        LongVector min = LongVector.broadcast(LONGS, Long.MAX_VALUE);
+        LongVector max = LongVector.broadcast(LONGS, Long.MIN_VALUE);
+        LongVector largest = LongVector.zero(LONGS);
+        int i = 0;
+        for (int bound = length - 2 * lanes; i <= bound; i += 2 * lanes) {
+            LongVector price0 = LongVector.fromArray(LONGS, prices, i);
+            LongVector price1 = LongVector.fromArray(LONGS, prices, i + lanes);
+            LongVector units0 = widen(amounts, i);
+            LongVector units1 = widen(amounts, i + lanes);
+            value0 = value0.add(price0.mul(units0));
+            value1 = value1.add(price1.mul(units1));
+            amount0 = amount0.add(units0);
+            amount1 = amount1.add(units1);
+            min = min.min(price0).min(price1);
+            max = max.max(price0).max(price1);
+            largest = largest.max(units0.abs()).max(units1.abs());
+        }
+        long minPrice = min.reduceLanes(VectorOperators.MIN);
+        long maxPrice = max.reduceLanes(VectorOperators.MAX);
+        if (i > 0) {
+            double price = Math.max(Math.abs((double) minPrice), Math.abs((double) maxPrice));
+            if (price * largest.reduceLanes(VectorOperators.MAX) * i >= SAFE) {
+                scalar.accumulate(prices, amounts, length, into);
+                return;
+            }
+        }
+        long value = value0.add(value1).reduceLanes(VectorOperators.ADD);
+        long amount = amount0.add(amount1).reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            long price = prices[i];
+            amount += amounts[i];
+            value = Math.addExact(value, Money.value(price, amounts[i]));
+            minPrice = Math.min(minPrice, price);
+            maxPrice = Math.max(maxPrice, price);
+        }
+        into.add(length, amount, value, minPrice, maxPrice);
+    }
+
+    private static LongVector widen(int[] amounts, int from) {
+        return (LongVector) IntVector.fromArray(INTS, amounts, from).convertShape(VectorOperators.I2L, LONGS, 0);
+    }
+
+    @Override
+    public String name() { return "vector (" + LONGS.length() + " lanes)"; }
+}
@@ -0,0 +1,57 @@
+package com.lab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class ColumnarItemStoreTest {
+
+    @Test
+    public void rowsRoundTripThroughColumns() {
+        ColumnarItemStore store = new ColumnarItemStore();
+        store.add(7, "Kaffee", "Bohnen für Entwickler", 1250, 3);
+        store.add(8, "Empty", null, 0, 0);
+
+        assertEquals(7, store.getId(0));
+        assertEquals("Kaffee", store.getName(0));
+        assertEquals("Bohnen für Entwickler", store.getDescription(0));
+        assertEquals(1250, store.getPriceCents(0));
+        assertEquals(12.5, store.getPrice(0));
+        assertEquals(3, store.getAmount(0));
+        assertNull(store.getDescription(1));
+
+        Item view = store.getItem(0);
+        assertEquals(7, view.getId());
+        assertEquals("Kaffee", view.getName());
+        assertThrows(UnsupportedOperationException.class, () -> view.setName("Tea"));
+    }
+
+    @Test
+    public void growsAcrossChunksAndSwapRemoves() {
+        ColumnarItemStore store = new ColumnarItemStore();
+        for (int i = 0; i < 40_000; i++) {
+            store.add(i + 1, "Item " + i, "Desc " + i, i, i);
+        }
+        store.move(39_999, 5);
+        store.removeLast();
+
+        assertEquals(39_999, store.size());
+        assertEquals(40_000, store.getId(5));
+        assertEquals("Item 39999", store.getName(5));
+        assertEquals("Desc 39999", store.getDescription(5));
+    }
+
+    @Test
+    public void repeatedEditsKeepLatestStrings() {
+        ColumnarItemStore store = new ColumnarItemStore();
+        store.add(1, "Start", "Start", 1, 1);
+        // Enough rewrites to force several compactions of the string area
+        for (int i = 0; i < 200_000; i++) {
+            store.set(0, "Name " + i, "Description that is reasonably long " + i, i, i);
+        }
+        assertEquals("Name 199999", store.getName(0));
+        assertEquals("Description that is reasonably long 199999", store.getDescription(0));
+    }
+}
@@ -0,0 +1,66 @@
+package com.lab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HeadlessAppTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void runsCommandsInOrder() throws IOException {
+        Path in = dir.resolve("in.csv");
+        Files.writeString(in, "name,description,price,amount\nMouse,Pointing device,25.0,4\n");
+        Path out = dir.resolve("out.csv");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        int status = HeadlessApp.run(new String[] { "report", "import", in.toString(), "report", "export",
+                out.toString() }, new PrintStream(output, true, StandardCharsets.UTF_8), System.err);
+
+        assertEquals(0, status);
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals("Total Amount: 4", lines.get(1));
+        assertEquals("Total Price: 1030.0", lines.get(2));
+        assertEquals("Total Amount: 8", lines.get(5));
+        assertEquals("Total Price: 1130.0", lines.get(6));
+        assertEquals(4, Files.readAllLines(out).size());
+    }
+
+    @Test
+    public void rejectsBadArgumentsBeforeLoading() {
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        PrintStream err = new PrintStream(errors, true, StandardCharsets.UTF_8);
+        assertEquals(2, HeadlessApp.run(new String[] { "report", "import" }, System.out, err));
+        assertEquals(2, HeadlessApp.run(new String[] { "reprot" }, System.out, err));
+        assertTrue(errors.toString(StandardCharsets.UTF_8).startsWith("Usage"));
+        assertEquals(1, HeadlessApp.run(new String[] { "import", dir.resolve("missing.csv").toString() },
+                System.out, err));
+    }
+
+    // Tests in this JVM load Swing anyway, so this one starts a fresh JVM and watches
+    // every class it loads
+    @Test
+    public void neverLoadsAwt() throws Exception {
+        Path java = Path.of(System.getProperty("java.home"), "bin", "java");
+        Process process = new ProcessBuilder(java.toString(), "-verbose:class", "-cp",
+                System.getProperty("java.class.path"), "com.lab.App", "--headless", "report")
+                .redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(0, process.waitFor());
+        assertTrue(output.contains("Total Price: 1030.0"), output);
+        assertFalse(output.contains("javax.swing"), "Swing was loaded");
+        assertFalse(output.contains("java.awt"), "AWT was loaded");
+    }
+}
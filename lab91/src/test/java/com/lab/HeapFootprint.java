@@ -0,0 +1,57 @@
+package com.lab;
+
+import java.lang.ref.Reference;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+// Not a test: measures retained heap for the list and columnar stores.
+// mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.lab.HeapFootprint -Dexec.args="1000000"
+// Run with a large -Xmx (e.g. MAVEN_OPTS=-Xmx8g) for 10M rows.
+public class HeapFootprint {
+    private static final String[] DESCRIPTIONS = {
+        "Developer machine", "Fuel for the developer", "Standing desk", "USB-C cable", "Noise cancelling headset"
+    };
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.printf("%,d rows%n", rows);
+        // A handful of descriptions, a catalogue where a few thousand repeat with a
+        // long tail, and one per row, the worst case for sharing
+        measure("list", "five", rows, i -> DESCRIPTIONS[i % DESCRIPTIONS.length]);
+        measure("columnar", "five", rows, i -> DESCRIPTIONS[i % DESCRIPTIONS.length]);
+        Random random = new Random(1);
+        measure("list", "skewed", rows, i -> catalogue(random));
+        random.setSeed(1);
+        measure("columnar", "skewed", rows, i -> catalogue(random));
+        measure("list", "unique", rows, i -> "Description of item " + i);
+        measure("columnar", "unique", rows, i -> "Description of item " + i);
+    }
+
+    private static String catalogue(Random random) {
+        // Squaring skews the draw towards the first entries
+        double u = random.nextDouble();
+        return "Catalogue entry " + (int) (u * u * 5000);
+    }
+
+    private static void measure(String kind, String descriptions, int rows, IntFunction<String> description) {
+        long before = usedHeap();
+        ItemModel model = new ItemModel(ItemStore.create(kind));
+        for (int i = 0; i < rows; i++) {
+            // Fresh strings per row, as they would be after parsing a file
+            model.addItem(new Item("SKU-" + i, new String(description.apply(i)), i * 0.25, i % 100));
+        }
+        long after = usedHeap();
+        System.out.printf("%-9s %-7s %,14d bytes  %6.1f bytes/row%n", kind, descriptions, after - before,
+                (after - before) / (double) rows);
+        // Keep the model reachable until after the measurement
+        Reference.reachabilityFence(model);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,94 @@
+package com.lab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class InventoryCsvTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void exportThenImportRoundTrips() throws IOException {
+        ItemModel source = new ItemModel(new ListItemStore());
+        source.addItem(new Item("Laptop", "Developer machine, 16\" screen", 1000.0, 1));
+        source.addItem(new Item("Café ☕", "Two\nlines", 0.1, 3));
+        source.addItem(new Item("Mouse", null, 1e-7, Integer.MAX_VALUE));
+        // Times Integer.MAX_VALUE this would be worth more cents than a long holds
+        source.addItem(new Item("Server", "Rack 🖥", 123456789.125, 1_000_000));
+        Path file = dir.resolve("items.csv");
+        assertEquals(4, InventoryCsv.write(file, source).getRows());
+
+        ItemModel target = new ItemModel(new ColumnarItemStore());
+        assertEquals(4, InventoryCsv.importInto(file, target, 4).getRows());
+        assertEquals(4, target.size());
+        for (int slot = 0; slot < 4; slot++) {
+            assertEquals(source.getName(slot), target.getName(slot));
+            assertEquals(source.getPrice(slot), target.getPrice(slot));
+            assertEquals(source.getAmount(slot), target.getAmount(slot));
+        }
+        assertEquals("Developer machine, 16\" screen", target.getDescription(0));
+        assertEquals("Two\nlines", target.getDescription(1));
+        assertEquals("", target.getDescription(2));
+        assertEquals("Rack 🖥", target.getDescription(3));
+    }
+
+    @Test
+    public void parallelImportMatchesSequentialAcrossQuotedLineBreaks() throws IOException {
+        ItemModel source = new ItemModel(new ListItemStore());
+        for (int i = 0; i < 100_000; i++) {
+            String description = i % 3 == 0 ? "Line one\nline \"two\", " + i : "Plain " + i;
+            source.addItem(new Item("Item " + i, description, i * 0.25, i % 100));
+        }
+        Path file = dir.resolve("bulk.csv");
+        InventoryCsv.write(file, source);
+
+        ItemModel sequential = new ItemModel(new ListItemStore());
+        InventoryCsv.importInto(file, sequential, 1);
+        ItemModel parallel = new ItemModel(new ListItemStore());
+        InventoryCsv.importInto(file, parallel, 8);
+
+        assertEquals(source.size(), parallel.size());
+        for (int slot = 0; slot < source.size(); slot++) {
+            assertEquals(source.getDescription(slot), sequential.getDescription(slot));
+            assertEquals(source.getDescription(slot), parallel.getDescription(slot));
+            assertEquals(source.getPrice(slot), parallel.getPrice(slot));
+        }
+        assertEquals(source.getTotalAmount(), parallel.getTotalAmount());
+    }
+
+    @Test
+    public void numbersParseWithoutLosingPrecision() {
+        String[] samples = { "0", "10.0", "1030.0", "0.1", "-2.5", "+.5", "1e3", "1.7976931348623157E308",
+                "4.9E-324", "123456789012345678901234", "0.30000000000000004", "9007199254740993" };
+        for (String sample : samples) {
+            byte[] bytes = sample.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(Double.parseDouble(sample), InventoryCsv.parsePrice(bytes, 0, bytes.length), sample);
+        }
+        byte[] bad = "12x".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(Double.NaN, InventoryCsv.parsePrice(bad, 0, bad.length));
+        byte[] big = "2147483648".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(-1, InventoryCsv.parseAmount(big, 0, big.length));
+    }
+
+    @Test
+    public void badRowReportsItsOffset() throws IOException {
+        Path file = dir.resolve("bad.csv");
+        Files.writeString(file, InventoryCsv.HEADER + "\nLaptop,Fine,1000.0,1\nCoffee,Cheap,-1,3\n");
+        IOException e = assertThrows(IOException.class,
+                () -> InventoryCsv.importInto(file, new ItemModel(new ListItemStore()), 1));
+        assertEquals("Bad CSV row at byte 51: invalid item details", e.getMessage());
+
+        Files.writeString(file, InventoryCsv.HEADER + "\nServer,Rack,123456789.125,2147483647\n");
+        e = assertThrows(IOException.class,
+                () -> InventoryCsv.importInto(file, new ItemModel(new ListItemStore()), 1));
+        assertEquals("Bad CSV row at byte 30: invalid item details", e.getMessage());
+    }
+}
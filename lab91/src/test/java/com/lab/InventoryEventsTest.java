@@ -0,0 +1,54 @@
+package com.lab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class InventoryEventsTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void mutationsAndTransfersAreRecorded() throws Exception {
+        Path csv = dir.resolve("items.csv");
+        Path jfr = dir.resolve("test.jfr");
+        ItemModel model = new ItemModel();
+        try (Recording recording = new Recording()) {
+            recording.enable("com.lab.ModelMutation");
+            recording.enable("com.lab.CsvTransfer");
+            recording.start();
+            Item mouse = new Item("Mouse", "Pointing device", 25.0, 4);
+            model.addItem(mouse);
+            model.updateItem(mouse.getId(), "Mouse", "Wireless", 30.0, 4);
+            model.deleteItem(mouse.getId());
+            InventoryCsv.write(csv, model);
+            recording.stop();
+            recording.dump(jfr);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(jfr);
+        List<String> operations = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.lab.ModelMutation"))
+                .map(e -> e.getString("operation") + " " + e.getLong("itemId") + " " + e.getInt("items"))
+                .collect(Collectors.toList());
+        long id = model.getNextId() - 1;
+        assertEquals(List.of("add " + id + " 1", "update " + id + " 1", "delete " + id + " 1"), operations);
+
+        RecordedEvent export = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.lab.CsvTransfer"))
+                .findFirst().orElseThrow();
+        assertEquals("export", export.getString("direction"));
+        assertEquals(2, export.getLong("rows"));
+        assertEquals(Files.size(csv), export.getLong("bytes"));
+    }
+}
@@ -0,0 +1,221 @@
+package com.lab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.jupiter.api.Test;
+
+public class ItemModelConcurrencyTest {
+    private static final int WRITERS = 4;
+    private static final int OPERATIONS = 5000;
+
+    @Test
+    public void snapshotIgnoresLaterWrites() {
+        ItemModel model = new ItemModel();
+        long first = model.getId(0);
+        ItemModel.Snapshot snapshot = model.snapshot();
+        Item before = snapshot.getItem(0);
+
+        model.updateItem(first, "Renamed", "", 1.0, 1);
+        model.deleteItem(model.getId(1));
+        model.addItem(new Item("Mouse", "Pointing device", 25.0, 4));
+        ItemModel.Snapshot later = model.snapshot();
+        model.deleteItem(first);
+
+        assertEquals(2, snapshot.size());
+        assertEquals(4, snapshot.getTotalAmount());
+        assertEquals(1030.0, snapshot.getTotalPrice(), 1e-9);
+        assertEquals(before.getName(), snapshot.getName(0));
+        assertEquals(first, snapshot.getId(0));
+        assertEquals("Renamed", later.getName(0));
+        assertEquals("Mouse", later.getName(1));
+        assertEquals(1, model.size());
+
+        snapshot.close();
+        later.close();
+        assertThrows(IllegalStateException.class, () -> snapshot.getName(0));
+        assertEquals("Mouse", model.getName(0));
+    }
+
+    // Writers add, update, delete and batch on their own threads while the EDT keeps
+    // taking snapshots and painting a table from them
+    @Test
+    public void writersAndEdtReaderAgree() throws Exception {
+        ItemModel model = new ItemModel(new ColumnarItemStore());
+        model.search("item");
+        model.prepareOrder(ItemOrder.VALUE);
+        ItemTableModel table = new ItemTableModel(model);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<List<Long>> survivors = new ArrayList<>();
+
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            List<Long> ids = new ArrayList<>();
+            survivors.add(ids);
+            Random random = new Random(w);
+            writers.add(new Thread(() -> {
+                try {
+                    write(model, random, ids);
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }, "writer-" + w));
+        }
+        writers.forEach(Thread::start);
+
+        while (writers.stream().anyMatch(Thread::isAlive) && failures.isEmpty()) {
+            SwingUtilities.invokeAndWait(() -> {
+                try {
+                    checkSnapshot(model);
+                    table.refresh();
+                    for (int row = 0; row < table.getRowCount(); row++) {
+                        assertNotNull(table.getValueAt(row, 0));
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        if (!failures.isEmpty()) {
+            throw new AssertionError(failures.peek());
+        }
+        model.verifyTotals();
+        int expected = 0;
+        for (List<Long> ids : survivors) {
+            expected += ids.size();
+            for (long id : ids) {
+                assertNotNull(model.getItem(id));
+            }
+        }
+        assertEquals(expected, model.size());
+        assertEquals(expected, model.search("item").length);
+        for (int rank = 1; rank < expected; rank++) {
+            Item low = model.getItem(model.idAt(ItemOrder.VALUE, rank - 1, false));
+            Item high = model.getItem(model.idAt(ItemOrder.VALUE, rank, false));
+            assertTrue(low.getPrice() * low.getAmount() <= high.getPrice() * high.getAmount());
+        }
+    }
+
+    // The indexes are built from a snapshot while writers carry on, then catch up
+    // with what they wrote meanwhile
+    @Test
+    public void indexesBuiltDuringWritesCatchUp() throws Exception {
+        ItemModel model = new ItemModel(new ColumnarItemStore());
+        ItemModel.Batch load = model.beginBatch();
+        for (int i = 0; i < 200_000; i++) {
+            load.add(new Item("Item " + i, "Loaded", i % 400 / 4.0, i % 50));
+        }
+        load.commit();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            Random random = new Random(w);
+            writers.add(new Thread(() -> {
+                try {
+                    write(model, random, new ArrayList<>());
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }, "writer-" + w));
+        }
+        writers.forEach(Thread::start);
+        model.search("scanned");
+        model.prepareOrder(ItemOrder.NAME);
+        model.prepareOrder(ItemOrder.VALUE);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        if (!failures.isEmpty()) {
+            throw new AssertionError(failures.peek());
+        }
+
+        int size = model.size();
+        int scanned = 0;
+        for (Item item : model.getItems()) {
+            scanned += item.getDescription().equals("Scanned") ? 1 : 0;
+        }
+        assertEquals(size, model.search("item").length);
+        assertEquals(scanned, model.search("scanned").length);
+        assertEquals(size - 1, model.rankOf(ItemOrder.NAME, model.idAt(ItemOrder.NAME, size - 1, false)));
+        assertEquals(0, model.idAt(ItemOrder.VALUE, size, false));
+        for (int rank = 1; rank < size; rank++) {
+            Item low = model.getItem(model.idAt(ItemOrder.VALUE, rank - 1, false));
+            Item high = model.getItem(model.idAt(ItemOrder.VALUE, rank, false));
+            assertTrue(low.getPrice() * low.getAmount() <= high.getPrice() * high.getAmount());
+        }
+    }
+
+    private static void write(ItemModel model, Random random, List<Long> ids) {
+        for (int i = 0; i < OPERATIONS; i++) {
+            int op = ids.isEmpty() ? 0 : random.nextInt(10);
+            if (op < 5) {
+                Item item = new Item("Item " + random.nextInt(1000), "Scanned", random.nextInt(400) / 4.0,
+                        random.nextInt(50));
+                model.addItem(item);
+                ids.add(item.getId());
+            } else if (op < 8) {
+                long id = ids.get(random.nextInt(ids.size()));
+                model.updateItem(id, "Item " + random.nextInt(1000), "Recounted", random.nextInt(400) / 4.0,
+                        random.nextInt(50));
+            } else if (op < 9) {
+                int at = random.nextInt(ids.size());
+                assertTrue(model.deleteItem(ids.get(at)) != -1);
+                ids.set(at, ids.get(ids.size() - 1));
+                ids.remove(ids.size() - 1);
+            } else {
+                ItemModel.Batch batch = model.beginBatch();
+                Item item = new Item("Item " + random.nextInt(1000), "Fed", 2.5, 3);
+                batch.add(item);
+                batch.delete(ids.get(ids.size() - 1));
+                ids.remove(ids.size() - 1);
+                batch.commit();
+                ids.add(item.getId());
+            }
+        }
+    }
+
+    // The rows add up to the snapshot's totals, IDs are unique, and reading the
+    // snapshot again after more writes gives the same rows
+    private static void checkSnapshot(ItemModel model) throws InterruptedException {
+        try (ItemModel.Snapshot snapshot = model.snapshot()) {
+            int size = snapshot.size();
+            long amount = 0;
+            double price = 0;
+            Set<Long> ids = new HashSet<>();
+            Item[] rows = new Item[size];
+            for (int slot = 0; slot < size; slot++) {
+                rows[slot] = snapshot.getItem(slot);
+                amount += rows[slot].getAmount();
+                price += rows[slot].getPrice() * rows[slot].getAmount();
+                assertTrue(ids.add(rows[slot].getId()), "duplicate ID " + rows[slot].getId());
+            }
+            assertEquals(snapshot.getTotalAmount(), amount);
+            assertEquals(snapshot.getTotalPrice(), price, 1e-6 * Math.max(1, price));
+
+            Thread.sleep(2);
+            for (int slot = 0; slot < size; slot++) {
+                Item again = snapshot.getItem(slot);
+                assertEquals(rows[slot].getId(), again.getId());
+                assertEquals(rows[slot].getName(), again.getName());
+                assertEquals(rows[slot].getDescription(), again.getDescription());
+                assertEquals(rows[slot].getPrice(), again.getPrice());
+                assertEquals(rows[slot].getAmount(), again.getAmount());
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.lab;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.jupiter.api.Test;
+
+public class ItemModelEventTest {
+
+    @Test
+    public void eventsNameTheChangedItems() {
+        ItemModel model = new ItemModel();
+        List<ItemModelEvent> events = new ArrayList<>();
+        model.addListener(events::add);
+        long laptop = model.getId(0);
+        long coffee = model.getId(1);
+
+        Item mouse = new Item("Mouse", "Pointing device", 25.0, 4);
+        model.addItem(mouse);
+        model.updateItem(laptop, "Laptop", "Spare", 900.0, 1);
+        model.updateItem(12345, "Nothing", "", 1.0, 1);
+        model.deleteItem(coffee);
+        assertEquals(3, events.size());
+        assertArrayEquals(new long[] { mouse.getId() }, events.get(0).getInserted());
+        assertArrayEquals(new long[] { laptop }, events.get(1).getUpdated());
+        assertArrayEquals(new long[] { coffee }, events.get(2).getDeleted());
+        assertEquals(model.getVersion(), events.get(2).getVersion());
+
+        // A batch is one event, and an item added and deleted within it never shows
+        Item keyboard = new Item("Keyboard", "", 40.0, 1);
+        Item scratch = new Item("Scratch", "", 1.0, 1);
+        model.beginBatch().add(keyboard).add(scratch).update(laptop, "Laptop", "", 800.0, 1)
+                .delete(scratch.getId()).delete(mouse.getId()).commit();
+        assertEquals(4, events.size());
+        ItemModelEvent batch = events.get(3);
+        assertArrayEquals(new long[] { keyboard.getId() }, batch.getInserted());
+        assertArrayEquals(new long[] { laptop }, batch.getUpdated());
+        assertArrayEquals(new long[] { mouse.getId() }, batch.getDeleted());
+    }
+
+    // 10,000 updates from a background thread within about half a second reach the
+    // EDT as a few dozen merged events, which between them name every updated item
+    @Test
+    public void burstsAreMergedPerFrame() throws Exception {
+        ItemModel model = new ItemModel(new ColumnarItemStore());
+        for (int i = 0; i < 100; i++) {
+            model.addItem(new Item("Item " + i, "", 1.0, i));
+        }
+        List<ItemModelEvent> delivered = new ArrayList<>();
+        EdtEventDispatcher dispatcher = new EdtEventDispatcher(delivered::add);
+        model.addListener(dispatcher);
+
+        long start = System.nanoTime();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                long id = model.getId(i % 100);
+                model.updateItem(id, "Item " + i, "", 2.0, i);
+                if (i % 200 == 0) {
+                    sleep(10);
+                }
+            }
+        });
+        writer.start();
+        writer.join();
+        long last = model.getVersion();
+        while (true) {
+            long[] seen = new long[1];
+            SwingUtilities.invokeAndWait(() -> seen[0] = delivered.isEmpty() ? 0
+                    : delivered.get(delivered.size() - 1).getVersion());
+            if (seen[0] == last) {
+                break;
+            }
+            Thread.sleep(5);
+        }
+        double frames = (System.nanoTime() - start) / (1e9 / 60);
+
+        SwingUtilities.invokeAndWait(() -> {
+            assertTrue(dispatcher.getDeliveries() <= frames + 2,
+                    dispatcher.getDeliveries() + " deliveries in " + frames + " frames");
+            LongIntHashMap updated = new LongIntHashMap();
+            for (ItemModelEvent event : delivered) {
+                for (long id : event.getUpdated()) {
+                    updated.put(id, 1);
+                }
+            }
+            assertEquals(100, updated.size());
+        });
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
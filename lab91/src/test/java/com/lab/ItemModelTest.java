@@ -0,0 +1,155 @@
+package com.lab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.junit.jupiter.api.Test;
+
+public class ItemModelTest {
+
+    @Test
+    public void totalsStartFromSeedData() {
+        ItemModel model = new ItemModel();
+        assertEquals(4, model.getTotalAmount());
+        assertEquals(1030.0, model.getTotalPrice(), 1e-9);
+    }
+
+    @Test
+    public void totalsFollowAddUpdateAndDelete() {
+        ItemModel model = new ItemModel();
+        Item mouse = new Item("Mouse", "Pointing device", 25.5, 4);
+        model.addItem(mouse);
+        assertEquals(8, model.getTotalAmount());
+        assertEquals(1132.0, model.getTotalPrice(), 1e-9);
+
+        model.updateItem(mouse.getId(), "Mouse", "Pointing device", 20.0, 2);
+        assertEquals(6, model.getTotalAmount());
+        assertEquals(1070.0, model.getTotalPrice(), 1e-9);
+
+        model.deleteItem(model.getItemAt(0).getId());
+        assertEquals(5, model.getTotalAmount());
+        assertEquals(70.0, model.getTotalPrice(), 1e-9);
+        model.verifyTotals();
+    }
+
+    @Test
+    public void verifyTotalsAgreesAfterManyEdits() {
+        ItemModel model = new ItemModel();
+        for (int i = 0; i < 1000; i++) {
+            model.addItem(new Item("Item " + i, "Bulk", i * 0.1, i % 7));
+        }
+        for (int i = 0; i < 500; i++) {
+            model.deleteItem(model.getItemAt(i).getId());
+        }
+        model.verifyTotals();
+    }
+
+    @Test
+    public void idsStayStableAcrossSwapRemove() {
+        ItemModel model = new ItemModel();
+        long laptop = model.getItemAt(0).getId();
+        long coffee = model.getItemAt(1).getId();
+        Item mouse = new Item("Mouse", "Pointing device", 25.5, 4);
+        model.addItem(mouse);
+
+        assertEquals(0, model.deleteItem(laptop));
+        assertEquals(2, model.size());
+        assertNull(model.getItem(laptop));
+        assertEquals(-1, model.deleteItem(laptop));
+
+        // The last item filled the freed slot but kept its ID
+        assertEquals(0, model.slotOf(mouse.getId()));
+        assertEquals("Mouse", model.getItem(mouse.getId()).getName());
+        assertEquals("Coffee", model.getItem(coffee).getName());
+    }
+
+    @Test
+    public void batchAppliesUnderOneVersionAndKeepsOrder() {
+        ItemModel model = new ItemModel();
+        for (int i = 0; i < 10; i++) {
+            model.addItem(new Item("Item " + i, "Bulk", 1.0, 1));
+        }
+        long before = model.getVersion();
+        ItemModel.Batch batch = model.beginBatch();
+        Item extra = new Item("Extra", "Added in batch", 5.0, 2);
+        batch.add(extra);
+        batch.update(model.getId(0), "Laptop", "Renamed", 500.0, 1);
+        for (int slot = 2; slot < 12; slot += 2) {
+            batch.delete(model.getId(slot));
+        }
+        batch.delete(12345);
+
+        assertEquals(7, batch.commit());
+        assertEquals(before + 1, model.getVersion());
+        assertEquals(8, model.size());
+        // Survivors are compacted in their original order, the batch add last
+        assertEquals("Laptop", model.getName(0));
+        assertEquals("Coffee", model.getName(1));
+        assertEquals("Item 1", model.getName(2));
+        assertEquals("Extra", model.getName(7));
+        for (int slot = 0; slot < model.size(); slot++) {
+            assertEquals(slot, model.slotOf(model.getId(slot)));
+        }
+        assertEquals(11, model.getTotalAmount());
+        assertEquals(545.0, model.getTotalPrice(), 1e-9);
+        model.verifyTotals();
+    }
+
+    @Test
+    public void batchCanDeleteEverything() {
+        ItemModel model = new ItemModel();
+        ItemModel.Batch batch = model.beginBatch();
+        batch.delete(model.getId(0)).delete(model.getId(1));
+        assertEquals(2, batch.commit());
+        assertEquals(0, model.size());
+        assertEquals(0, model.getTotalAmount());
+        assertEquals(0.0, model.getTotalPrice());
+    }
+
+    @Test
+    public void modelWithoutItsJournalRefusesEdits() {
+        ItemModel model = new ItemModel();
+        model.refuseEdits(new IOException("journal.log: Permission denied"));
+        assertThrows(UncheckedIOException.class, () -> model.addItem(new Item("Mouse", null, 25.0, 1)));
+        assertThrows(UncheckedIOException.class, () -> model.deleteItem(model.getId(0)));
+        assertThrows(UncheckedIOException.class, () -> model.beginBatch().delete(model.getId(1)).commit());
+        assertEquals(2, model.size());
+        assertEquals("Laptop", model.getName(0));
+    }
+
+    @Test
+    public void editNearTheLimitChecksOnlyTheNetChange() {
+        ItemModel model = new ItemModel(new ListItemStore());
+        double price = Money.toPrice(1L << 40);
+        model.addItem(new Item("Large", null, price, 1 << 22));
+        model.addItem(new Item("Half", null, price, 1 << 21));
+        // Adding the new value before removing the old one would pass 2^63 cents
+        model.updateItem(model.getId(0), "Large", null, price, (1 << 22) + 1);
+        assertEquals((1L << 62) + (1L << 61) + (1L << 40), model.getTotalCents());
+        model.verifyTotals();
+    }
+
+    @Test
+    public void batchThatWouldOverflowAppliesNothing() {
+        ItemModel model = new ItemModel(new ListItemStore());
+        double price = Money.toPrice(1L << 40);
+        model.addItem(new Item("Large", null, price, 1 << 22));
+        ItemModel.Batch batch = model.beginBatch();
+        batch.update(model.getId(0), "Renamed", null, price, 1);
+        batch.add(new Item("Small", null, 1.0, 1));
+        // Fits after the update above has shrunk the first row, but not together with the next add
+        batch.add(new Item("Large again", null, price, 1 << 22));
+        batch.add(new Item("Too large", null, price, 1 << 22));
+        batch.delete(model.getId(0));
+        assertThrows(ArithmeticException.class, batch::commit);
+
+        assertEquals(1, model.size());
+        assertEquals("Large", model.getName(0));
+        assertEquals(1L << 62, model.getTotalCents());
+        model.verifyTotals();
+    }
+}
@@ -0,0 +1,186 @@
+package com.lab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class JournalTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void recoveryReplaysJournal() throws IOException {
+        long coffee;
+        try (ItemModel model = new ItemModel(new ListItemStore())) {
+            Journal.open(dir, model);
+            model.addSampleItems();
+            coffee = model.getId(1);
+            model.updateItem(coffee, "Coffee", "Decaf", 12.0, 5);
+            model.deleteItem(model.getId(0));
+        }
+
+        try (ItemModel model = new ItemModel(new ColumnarItemStore())) {
+            Journal.open(dir, model);
+            assertEquals(1, model.size());
+            assertEquals("Decaf", model.getItem(coffee).getDescription());
+            assertEquals(60.0, model.getTotalPrice(), 1e-9);
+            assertTrue(model.getNextId() > coffee);
+        }
+    }
+
+    @Test
+    public void tornTailIsDiscarded() throws IOException {
+        try (ItemModel model = new ItemModel(new ListItemStore())) {
+            Journal.open(dir, model);
+            model.addSampleItems();
+        }
+        try (FileChannel channel = FileChannel.open(dir.resolve("journal.log"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 0, 0, 0, 40, 1, 2 }), channel.size());
+        }
+
+        try (ItemModel model = new ItemModel(new ListItemStore())) {
+            Journal.open(dir, model);
+            assertEquals(2, model.size());
+            model.addItem(new Item("Mouse", "Pointing device", 25.0, 1));
+        }
+        try (ItemModel model = new ItemModel(new ListItemStore())) {
+            Journal.open(dir, model);
+            assertEquals(3, model.size());
+        }
+    }
+
+    @Test
+    public void compactsIntoSnapshotPastTheLimit() throws IOException {
+        CompletableFuture<Void> last = null;
+        try (ItemModel model = new ItemModel(new ListItemStore())) {
+            Journal journal = Journal.open(dir, model, 4096);
+            for (int i = 0; i < 2000; i++) {
+                model.addItem(new Item("Item " + i, "Bulk", i, 1));
+                if (i % 2 == 0) {
+                    model.deleteItem(model.getId(0));
+                }
+            }
+            last = journal.logDelete(-1);
+        }
+        assertTrue(last.isDone());
+        assertTrue(Files.exists(dir.resolve("snapshot.dat")));
+        assertFalse(Files.exists(dir.resolve("journal.old")));
+
+        try (ItemModel model = new ItemModel(new ListItemStore())) {
+            Journal.open(dir, model);
+            assertEquals(1000, model.size());
+            assertNull(model.getItem(1));
+            model.verifyTotals();
+        }
+    }
+
+    @Test
+    public void failedCompactionKeepsTheRotatedJournal() throws IOException, InterruptedException {
+        // A directory where the compactor writes its snapshot makes every compaction fail
+        Path blocker = Files.createDirectories(dir.resolve("snapshot.tmp"));
+        try (ItemModel model = new ItemModel(new ListItemStore())) {
+            Journal journal = Journal.open(dir, model, 4096);
+            CompletableFuture<Void> none = journal.getCompaction();
+            for (int i = 0; i < 200; i++) {
+                model.addItem(new Item("Item " + i, "First", i, 1));
+            }
+            // The rotation starts a compaction, which fails
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (journal.getCompaction() == none && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertTrue(journal.getCompaction() != none);
+            journal.getCompaction().join();
+            assertTrue(Files.exists(dir.resolve("journal.old")));
+            // Past the limit again, with the failed compaction over
+            for (int i = 200; i < 400; i++) {
+                model.addItem(new Item("Item " + i, "Second", i, 1));
+            }
+        }
+        assertTrue(Files.exists(dir.resolve("journal.old")));
+
+        Files.delete(blocker);
+        try (ItemModel model = new ItemModel(new ListItemStore())) {
+            Journal.open(dir, model);
+            assertEquals(400, model.size());
+            for (int i = 0; i < 400; i++) {
+                assertEquals("Item " + i, model.getName(i));
+            }
+            model.verifyTotals();
+        }
+    }
+
+    @Test
+    public void failedWriterRefusesFurtherEdits() throws IOException {
+        try (ItemModel model = new ItemModel(new ListItemStore())) {
+            Journal journal = Journal.open(dir, model);
+            model.addSampleItems();
+            // Stands in for a failing disk: the writer stops and fails what it has not written
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().equals("inventory-journal")) {
+                    thread.interrupt();
+                }
+            }
+            CompletableFuture<Void> lost = journal.logDelete(-1);
+            assertThrows(ExecutionException.class, () -> lost.get(5, TimeUnit.SECONDS));
+
+            assertThrows(UncheckedIOException.class, () -> model.addItem(new Item("Mouse", "Lost", 25.0, 1)));
+            assertThrows(UncheckedIOException.class, () -> model.beginBatch().delete(model.getId(0)).commit());
+            assertEquals(2, model.size());
+        }
+    }
+
+    @Test
+    public void batchedReplayMatchesEntryByEntry() throws IOException {
+        try (ItemModel model = new ItemModel(new ListItemStore())) {
+            Journal.open(dir, model);
+            model.addSampleItems();
+            long laptop = model.getId(0);
+            // Deleted and brought back by undo under the same ID, then edited
+            Item before = model.getItem(laptop);
+            model.deleteItem(laptop);
+            model.restoreItem(laptop, before.getName(), before.getDescription(), before.getPrice(), 1);
+            model.updateItem(laptop, "Laptop", "Refurbished", 800.0, 2);
+            Item mouse = new Item("Mouse", "Pointing device", 25.0, 4);
+            model.addItem(mouse);
+            model.updateItem(mouse.getId(), "Mouse", "Wireless", 30.0, 4);
+            model.deleteItem(model.getId(1));
+        }
+
+        List<Journal.Entry> entries = new ArrayList<>();
+        Journal.recover(dir, entries::add);
+        ItemModel oneByOne = new ItemModel(new ListItemStore());
+        entries.forEach(entry -> entry.applyTo(oneByOne));
+        ItemModel batched = new ItemModel(new ListItemStore());
+        Journal.applyAll(entries, batched);
+
+        assertEquals(oneByOne.size(), batched.size());
+        for (int slot = 0; slot < oneByOne.size(); slot++) {
+            Item expected = oneByOne.getItemAt(slot);
+            Item actual = batched.getItem(expected.getId());
+            assertEquals(expected.getDescription(), actual.getDescription());
+            assertEquals(expected.getPriceCents(), actual.getPriceCents());
+            assertEquals(expected.getAmount(), actual.getAmount());
+        }
+        assertEquals(oneByOne.getTotalCents(), batched.getTotalCents());
+        assertEquals(oneByOne.getNextId(), batched.getNextId());
+    }
+}
@@ -0,0 +1,62 @@
+package com.lab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.EventQueue;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+    @Test
+    public void percentilesAreWithinOneBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_500, histogram.getMean(), 1e-6);
+        assertEquals(500_000, histogram.getPercentile(0.5), 500_000 / 8);
+        assertEquals(990_000, histogram.getPercentile(0.99), 990_000 / 8);
+        assertEquals(1_000_000, histogram.getPercentile(1.0), 1_000_000 / 8);
+
+        for (long value = 0; value < 1 << 20; value += 37) {
+            int bucket = LatencyHistogram.bucket(value);
+            assertTrue(LatencyHistogram.lowerBound(bucket) <= value && value <= LatencyHistogram.upperBound(bucket));
+        }
+    }
+
+    @Test
+    public void watchdogCapturesBlockedEdt() throws Exception {
+        Metrics metrics = new Metrics();
+        EdtWatchdog watchdog = new EdtWatchdog(metrics, 50);
+        watchdog.start();
+        try {
+            EventQueue.invokeAndWait(() -> { });
+            Thread.sleep(100);
+            EventQueue.invokeAndWait(LatencyHistogramTest::blockEdt);
+            Thread.sleep(100);
+        } finally {
+            watchdog.stop();
+        }
+
+        // A GC pause on a busy machine may show up as a stall of its own
+        Metrics.Stall stall = metrics.getStalls().stream()
+                .filter(s -> List.of(s.getStack()).stream().anyMatch(f -> f.getMethodName().equals("blockEdt")))
+                .findFirst().orElseThrow();
+        assertTrue(stall.isOver());
+        assertTrue(stall.getNanos() >= 200_000_000L, "lasted " + stall.getNanos());
+        assertTrue(metrics.histogram("edt.heartbeat").getCount() > 0);
+        assertTrue(metrics.report().contains("blockEdt"));
+    }
+
+    private static void blockEdt() {
+        try {
+            Thread.sleep(300);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.lab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MappedItemStoreTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void itemsSurviveReopen() throws IOException {
+        Path file = dir.resolve("inventory.db");
+        long coffee;
+        try (ItemModel model = new ItemModel(MappedItemStore.open(file))) {
+            model.addItem(new Item("Laptop", "Developer machine", 1000.0, 1));
+            Item item = new Item("Coffee", "Fuel for the developer", 10.0, 3);
+            model.addItem(item);
+            coffee = item.getId();
+            model.addItem(new Item("Mouse", null, 25.0, 2));
+            model.updateItem(coffee, "Coffee", "Decaf", 12.0, 5);
+            model.deleteItem(model.getId(0));
+        }
+
+        try (ItemModel model = new ItemModel(MappedItemStore.open(file))) {
+            assertEquals(2, model.size());
+            assertEquals("Decaf", model.getItem(coffee).getDescription());
+            assertEquals(12.0, model.getItem(coffee).getPrice());
+            assertNull(model.getDescription(0));
+            assertEquals(7, model.getTotalAmount());
+            assertEquals(110.0, model.getTotalPrice(), 1e-9);
+            // New IDs continue after the ones already handed out
+            Item next = new Item("Desk", "Standing", 300.0, 1);
+            model.addItem(next);
+            assertEquals(4, next.getId());
+        }
+    }
+
+    @Test
+    public void tornWriteFallsBackToPreviousCopy() throws IOException {
+        Path file = dir.resolve("inventory.db");
+        MappedItemStore store = MappedItemStore.open(file);
+        ItemModel model = new ItemModel(store);
+        model.addItem(new Item("Laptop", "Developer machine", 1000.0, 1));
+        model.updateItem(model.getId(0), "Laptop", "Developer machine", 900.0, 2);
+        store.flush();
+        // Simulate a crash: no close, then scribble over the newer copy's price
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 1, 2, 3, 4 }), 4096 + 48 + 16);
+        }
+
+        try (ItemModel reopened = new ItemModel(MappedItemStore.open(file))) {
+            assertEquals(1, reopened.size());
+            assertEquals(1000.0, reopened.getPrice(0));
+            assertEquals(1, reopened.getTotalAmount());
+            reopened.verifyTotals();
+        }
+    }
+
+    @Test
+    public void editsAcrossManyRowsSurviveReopen() throws IOException {
+        Path file = dir.resolve("inventory.db");
+        try (MappedItemStore store = MappedItemStore.open(file)) {
+            for (int i = 0; i < 5000; i++) {
+                store.add(i + 1, "Item " + i, null, i, 1);
+            }
+            // Each record flips to its other copy, in chunks touched out of order
+            for (int slot = 4999; slot >= 0; slot -= 7) {
+                store.set(slot, "Edited " + slot, null, slot, 2);
+            }
+            store.move(4999, 1);
+            store.removeLast();
+        }
+
+        try (MappedItemStore store = MappedItemStore.open(file)) {
+            assertEquals(4999, store.size());
+            assertEquals("Edited 4999", store.getName(1));
+            assertEquals(5000, store.getId(1));
+            assertEquals("Item 3000", store.getName(3000));
+            assertEquals("Edited 3004", store.getName(3004));
+            assertEquals(2, store.getAmount(3004));
+        }
+    }
+
+    @Test
+    public void concurrentFirstReadsResolveEveryRecord() throws Exception {
+        Path file = dir.resolve("inventory.db");
+        try (MappedItemStore store = MappedItemStore.open(file)) {
+            for (int i = 0; i < 50_000; i++) {
+                store.add(i + 1, null, null, i, i);
+            }
+        }
+        // Every slot's first read checks both copies' CRCs, from four threads at once
+        try (MappedItemStore store = MappedItemStore.open(file)) {
+            ExecutorService pool = Executors.newFixedThreadPool(4);
+            List<Future<?>> readers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                readers.add(pool.submit(() -> {
+                    for (int slot = 0; slot < store.size(); slot++) {
+                        assertEquals(slot, store.getAmount(slot));
+                    }
+                }));
+            }
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.lab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class MoneyTest {
+    @Test
+    public void roundsTheDecimalFormHalfUp() {
+        assertEquals(10, Money.toCents(0.1));
+        assertEquals(103000, Money.toCents(1030.0));
+        // Each of these is a little below the half in binary
+        assertEquals(101, Money.toCents(1.005));
+        assertEquals(268, Money.toCents(2.675));
+        assertEquals(-101, Money.toCents(-1.005));
+        assertEquals(1234, Money.toCents(12.344999));
+        assertThrows(ArithmeticException.class, () -> Money.toCents(Double.NaN));
+        assertThrows(ArithmeticException.class, () -> Money.toCents(1e300));
+
+        for (long cents = -100_000; cents <= 100_000; cents += 7) {
+            assertEquals(cents, Money.toCents(Money.toPrice(cents)));
+        }
+        assertEquals("1030.0", String.valueOf(Money.toPrice(103000)));
+    }
+
+    @Test
+    public void formatsCentsExactlyWithoutExponents() {
+        assertEquals("1030.0", Money.format(103000));
+        assertEquals("10.25", Money.format(1025));
+        assertEquals("0.1", Money.format(10));
+        assertEquals("-0.05", Money.format(-5));
+        assertEquals("0.0", Money.format(0));
+        assertEquals("1.0E7", String.valueOf(Money.toPrice(1_000_000_000)));
+        assertEquals("10000000.0", Money.format(1_000_000_000));
+        // Past 2^53 the double loses the cents
+        assertEquals("92233720368547758.07", Money.format(Long.MAX_VALUE));
+        assertEquals("-92233720368547758.08", Money.format(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void totalsAreExactAndOverflowLeavesTheModelAlone() {
+        ItemModel model = new ItemModel(new ColumnarItemStore());
+        double sum = 0;
+        for (int i = 0; i < 10; i++) {
+            model.addItem(new Item("Item " + i, null, 0.1, 1));
+            sum += 0.1;
+        }
+        assertEquals(0.9999999999999999, sum);
+        assertEquals(1.0, model.getTotalPrice());
+        assertEquals(100, model.getTotalCents());
+
+        Item huge = new Item("Huge", null, 9e13, Integer.MAX_VALUE);
+        assertThrows(ArithmeticException.class, () -> model.addItem(huge));
+        assertEquals(10, model.size());
+        assertEquals(100, model.getTotalCents());
+        assertThrows(ArithmeticException.class,
+                () -> model.updateItem(model.getId(0), "Item 0", null, 9e13, Integer.MAX_VALUE));
+        assertEquals(0.1, model.getPrice(0));
+        model.verifyTotals();
+    }
+}
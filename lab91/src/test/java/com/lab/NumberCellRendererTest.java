@@ -0,0 +1,52 @@
+package com.lab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.text.NumberFormat;
+
+import org.junit.jupiter.api.Test;
+
+public class NumberCellRendererTest {
+    @Test
+    public void formatsLikeJTableAndReusesText() {
+        NumberCellRenderer decimal = NumberCellRenderer.decimal();
+        NumberCellRenderer integer = NumberCellRenderer.integer();
+        assertEquals(NumberFormat.getInstance().format(1234.5), decimal.text(1234.5));
+        assertEquals(NumberFormat.getInstance().format(0.0), decimal.text(0.0));
+        assertEquals("12345", integer.text(12345));
+        assertEquals("0", integer.text(0));
+
+        String first = decimal.text(19.99);
+        for (int i = 0; i < 5000; i++) {
+            decimal.text(i / 4.0);
+        }
+        // Evicted by now, but formatted to an equal string again
+        assertEquals(first, decimal.text(19.99));
+        assertSame(decimal.text(19.99), decimal.text(19.99));
+    }
+
+    // Cached cells follow edits once the table refreshes, and follow the rows
+    // when the view switches between slot order, a sort and a filter
+    @Test
+    public void tableCellsFollowTheModel() {
+        ItemModel model = new ItemModel();
+        ItemTableModel table = new ItemTableModel(model);
+        long laptop = table.getItemId(0);
+        assertEquals(1000.0, table.getValueAt(0, 2));
+
+        model.updateItem(laptop, "Laptop", "Developer machine", 900.0, 2);
+        assertEquals(1000.0, table.getValueAt(0, 2));
+        table.refresh();
+        assertEquals(900.0, table.getValueAt(0, 2));
+        assertEquals(1800.0, table.getValueAt(0, 4));
+
+        table.setOrder(ItemOrder.PRICE, false);
+        assertEquals("Coffee", table.getValueAt(0, 0));
+        model.updateItem(laptop, "Laptop", "Developer machine", 1.0, 2);
+        assertEquals("Laptop", table.getValueAt(0, 0));
+        table.setFilter(model.search("fuel"));
+        assertEquals("Coffee", table.getValueAt(0, 0));
+        assertEquals(3, table.getValueAt(0, 3));
+    }
+}
@@ -0,0 +1,77 @@
+package com.lab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class OrderIndexTest {
+
+    // Every rank agrees with a full sort of the model, and rankOf inverts idAt
+    private static void assertSorted(ItemModel model, ItemOrder by, Comparator<Item> comparator) {
+        List<Item> expected = new ArrayList<>(model.getItems());
+        expected.sort(comparator.thenComparingLong(Item::getId));
+        assertEquals(0, model.idAt(by, expected.size(), false));
+        for (int rank = 0; rank < expected.size(); rank++) {
+            long id = expected.get(rank).getId();
+            assertEquals(id, model.idAt(by, rank, false), by + " rank " + rank);
+            assertEquals(id, model.idAt(by, expected.size() - 1 - rank, true));
+            assertEquals(rank, model.rankOf(by, id));
+        }
+    }
+
+    @Test
+    public void ordersFollowRandomEdits() {
+        ItemModel model = new ItemModel(new ColumnarItemStore());
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            model.addItem(new Item("Item " + random.nextInt(500), "", random.nextInt(100) / 4.0, random.nextInt(20)));
+        }
+        for (ItemOrder by : ItemOrder.values()) {
+            model.prepareOrder(by);
+        }
+        for (int i = 0; i < 3000; i++) {
+            long id = model.getId(random.nextInt(model.size()));
+            switch (random.nextInt(3)) {
+                case 0 -> model.addItem(new Item("item " + random.nextInt(500), "", random.nextInt(100) / 4.0,
+                        random.nextInt(20)));
+                case 1 -> model.updateItem(id, "ITEM " + random.nextInt(500), "", random.nextInt(100) / 4.0,
+                        random.nextInt(20));
+                default -> model.deleteItem(id);
+            }
+        }
+        ItemModel.Batch batch = model.beginBatch();
+        for (int slot = 0; slot < model.size(); slot += 3) {
+            batch.delete(model.getId(slot));
+        }
+        batch.commit();
+
+        assertSorted(model, ItemOrder.NAME, Comparator.comparing(Item::getName, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(Item::getName));
+        assertSorted(model, ItemOrder.PRICE, Comparator.comparingDouble(Item::getPrice));
+        assertSorted(model, ItemOrder.AMOUNT, Comparator.comparingInt(Item::getAmount));
+        assertSorted(model, ItemOrder.VALUE, Comparator.comparingDouble(item -> item.getPrice() * item.getAmount()));
+    }
+
+    @Test
+    public void sortedTableMapsRowsToItems() {
+        ItemModel model = new ItemModel();
+        model.addItem(new Item("Mouse", "Pointing device", 25.0, 4));
+        ItemTableModel table = new ItemTableModel(model);
+        table.setOrder(ItemOrder.VALUE, true);
+        assertEquals("Laptop", table.getValueAt(0, 0));
+        assertEquals("Mouse", table.getValueAt(1, 0));
+        assertEquals(100.0, table.getValueAt(1, 4));
+
+        model.deleteItem(table.getItemId(0));
+        assertEquals("Mouse", table.getValueAt(0, 0));
+        table.setFilter(model.search("de"));
+        table.setOrder(ItemOrder.NAME, false);
+        assertEquals("Coffee", table.getValueAt(0, 0));
+        assertEquals("Mouse", table.getValueAt(1, 0));
+    }
+}
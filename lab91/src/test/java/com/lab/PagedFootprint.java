@@ -0,0 +1,83 @@
+package com.lab;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Not a test: retained heap of a dashboard table over a MappedItemStore, after
+// scrolling through it, for the direct and the paged table.
+// mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.lab.PagedFootprint -Dexec.args="50000000"
+// The file takes about 140 bytes a row on disk; it is written once per size to the temp directory.
+public class PagedFootprint {
+    private static final int VISIBLE_ROWS = 40;
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path file = Path.of(System.getProperty("java.io.tmpdir"), "paged-footprint-" + rows + ".inventory");
+        if (!Files.exists(file)) {
+            create(file, rows);
+        }
+        // The first pass warms up the JIT and loads the classes, which would count as retained
+        for (int pass = 0; pass < 2; pass++) {
+            System.out.printf(pass == 0 ? "warm-up%n" : "%,d rows%n", rows);
+            measure(file, false);
+            measure(file, true);
+        }
+    }
+
+    // Straight into the store: going through a model would build its ID index
+    private static void create(Path file, int rows) throws IOException {
+        MappedItemStore store = MappedItemStore.open(file);
+        ModelState state = new ModelState();
+        for (int i = 0; i < rows; i++) {
+            long cents = (i % 1000) * 25L;
+            store.add(state.nextId++, "SKU-" + i, "Catalogue entry " + i % 5000, cents, i % 50);
+            state.totalAmount += i % 50;
+            state.totalCents += Money.value(cents, i % 50);
+        }
+        store.persistState(state);
+        store.close();
+    }
+
+    private static void measure(Path file, boolean paged) throws IOException {
+        long before = usedHeap();
+        ItemModel model = new ItemModel(MappedItemStore.open(file));
+        ItemTableModel table = new ItemTableModel(model, paged ? new RowPageCache(model, 64, 256) : null);
+        int rows = table.getRowCount();
+        long start = System.nanoTime();
+        // A wheel scroll through the first 100k rows, three rows a notch...
+        for (int first = 0; first + VISIBLE_ROWS <= Math.min(rows, 100_000); first += 3) {
+            paint(table, first);
+        }
+        long wheel = System.nanoTime() - start;
+        // ...then a thumb drag to the end and back
+        for (int step = 0; step <= 2000; step++) {
+            int sweep = step <= 1000 ? step : 2000 - step;
+            paint(table, (int) ((rows - VISIBLE_ROWS) * (long) sweep / 1000));
+        }
+        long drag = System.nanoTime() - start - wheel;
+        long after = usedHeap();
+        System.out.printf("%-7s %,12d bytes retained  wheel %,5d ms  drag %,5d ms%n", paged ? "paged" : "direct",
+                after - before, wheel / 1_000_000, drag / 1_000_000);
+        Reference.reachabilityFence(table);
+        model.close();
+    }
+
+    private static void paint(ItemTableModel table, int first) {
+        table.viewportChanged(first, first + VISIBLE_ROWS - 1);
+        for (int row = first; row < first + VISIBLE_ROWS; row++) {
+            for (int column = 0; column < table.getColumnCount(); column++) {
+                table.getValueAt(row, column);
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,84 @@
+package com.lab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+public class ReportEngineTest {
+    private static final String[] DESCRIPTIONS = { "Developer machine", "Fuel for the developer", "Pointing device",
+            "", null };
+
+    // Enough rows for several fork-join leaves; the snapshot is written to after it
+    // was taken, so some rows come from its overlay
+    @Test
+    public void matchesANaivePassOverTheSnapshot() {
+        ItemModel model = new ItemModel(new ColumnarItemStore());
+        Random random = new Random(7);
+        ItemModel.Batch batch = model.beginBatch();
+        for (int i = 0; i < 100_000; i++) {
+            batch.add(new Item("Item " + i, DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)],
+                    random.nextInt(2_000_000) / 100.0, random.nextInt(10)));
+        }
+        batch.commit();
+        ItemModel.Snapshot snapshot = model.snapshot();
+        List<Item> expected = new ArrayList<>();
+        for (int slot = 0; slot < snapshot.size(); slot++) {
+            expected.add(snapshot.getItem(slot));
+        }
+        for (int i = 0; i < 1000; i++) {
+            long id = model.getId(random.nextInt(model.size()));
+            if (random.nextBoolean()) {
+                model.deleteItem(id);
+            } else {
+                model.updateItem(id, "Changed", "Changed", 1.0, 1);
+            }
+        }
+
+        ReportEngine engine = new ReportEngine(new ForkJoinPool(4), 10, 50, new double[] { 10, 1000 });
+        ReportEngine.Report report = engine.compute(snapshot);
+        snapshot.close();
+
+        assertEquals(expected.size(), report.getItems());
+        assertEquals(expected.stream().mapToLong(Item::getAmount).sum(), report.getTotalAmount());
+
+        Map<String, Long> units = new HashMap<>();
+        for (Item item : expected) {
+            String key = item.getDescription() == null ? "" : item.getDescription();
+            units.merge(key, (long) item.getAmount(), Long::sum);
+        }
+        assertEquals(units, report.getDescriptions().stream()
+                .collect(Collectors.toMap(ReportEngine.Group::getKey, ReportEngine.Group::getAmount)));
+        for (int i = 1; i < report.getDescriptions().size(); i++) {
+            assertEquals(true, report.getDescriptions().get(i - 1).getValue()
+                    >= report.getDescriptions().get(i).getValue());
+        }
+
+        List<ReportEngine.Group> bands = report.getPriceBands();
+        String thousand = NumberFormat.getInstance().format(1000);
+        assertEquals(List.of("< 10", "10 \u2013 " + thousand, "\u2265 " + thousand),
+                bands.stream().map(ReportEngine.Group::getKey).collect(Collectors.toList()));
+        assertEquals(expected.stream().filter(item -> item.getPrice() < 10).count(), bands.get(0).getItems());
+        assertEquals(expected.stream().filter(item -> item.getPrice() >= 1000).count(), bands.get(2).getItems());
+
+        List<Long> top = expected.stream()
+                .sorted(Comparator.comparingDouble((Item item) -> -item.getPrice() * item.getAmount()))
+                .limit(10).map(Item::getId).collect(Collectors.toList());
+        assertEquals(top, report.getTopItems().stream().map(Item::getId).collect(Collectors.toList()));
+
+        List<Long> zero = expected.stream().filter(item -> item.getAmount() == 0).map(Item::getId)
+                .collect(Collectors.toList());
+        assertEquals(zero.size(), report.getZeroStockCount());
+        assertEquals(zero.subList(0, 50), report.getZeroStock().stream().map(Item::getId)
+                .collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,81 @@
+package com.lab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class RowPageCacheTest {
+
+    private static ItemModel model(int rows) {
+        ItemModel model = new ItemModel(new ColumnarItemStore());
+        for (int i = 0; i < rows; i++) {
+            model.addItem(new Item("Item " + i, "Desc " + i, i, i));
+        }
+        return model;
+    }
+
+    @Test
+    public void keepsTheLeastRecentlyUsedPagesOut() {
+        ItemModel model = model(1000);
+        RowPageCache cache = new RowPageCache(model, 10, 4);
+        try (ItemModel.Snapshot snapshot = model.snapshot()) {
+            assertEquals("Item 5", cache.page(snapshot, 5).getName(5));
+            assertEquals(9, cache.page(snapshot, 9).getAmount(9));
+            cache.page(snapshot, 10);
+            cache.page(snapshot, 20);
+            cache.page(snapshot, 30);
+            // Touching page 0 makes page 1 the eldest, so page 4 pushes that out
+            cache.page(snapshot, 0);
+            cache.page(snapshot, 40);
+            assertEquals(4, cache.size());
+            assertEquals(5, cache.getMisses());
+            cache.page(snapshot, 0);
+            cache.page(snapshot, 15);
+            assertEquals(6, cache.getMisses());
+            assertEquals(3, cache.getHits());
+        }
+    }
+
+    @Test
+    public void readsAgainAfterAWrite() {
+        ItemModel model = model(100);
+        RowPageCache cache = new RowPageCache(model, 10, 4);
+        try (ItemModel.Snapshot before = model.snapshot()) {
+            cache.page(before, 3);
+            model.updateItem(model.getId(3), "Renamed", "Desc 3", 3, 3);
+            try (ItemModel.Snapshot after = model.snapshot()) {
+                assertEquals("Renamed", cache.page(after, 3).getName(3));
+                assertEquals(2, cache.getMisses());
+            }
+        }
+    }
+
+    @Test
+    public void readsAheadOfTheScrollDirection() throws InterruptedException {
+        ItemModel model = model(1000);
+        RowPageCache cache = new RowPageCache(model, 10, 8);
+        try (ItemModel.Snapshot snapshot = model.snapshot()) {
+            cache.prefetch(snapshot, 500, 519);
+            awaitPages(cache, 2);
+            cache.page(snapshot, 520);
+            cache.page(snapshot, 539);
+            assertEquals(0, cache.getMisses());
+
+            // Scrolling back up reads the pages above instead
+            cache.prefetch(snapshot, 480, 499);
+            awaitPages(cache, 4);
+            cache.page(snapshot, 460);
+            cache.page(snapshot, 479);
+            assertEquals(0, cache.getMisses());
+        }
+    }
+
+    private static void awaitPages(RowPageCache cache, int pages) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (cache.size() < pages && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(cache.size() >= pages, "pages read ahead: " + cache.size());
+    }
+}
@@ -0,0 +1,74 @@
+package com.lab;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class SearchIndexTest {
+
+    private static long[] sorted(long[] ids) {
+        long[] copy = ids.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    @Test
+    public void matchesSubstringsAndWordPrefixes() {
+        ItemModel model = new ItemModel();
+        long laptop = model.getId(0);
+        long coffee = model.getId(1);
+        Item mouse = new Item("Mouse", "Wireless, for the LAPTOP bag", 25.0, 4);
+        model.addItem(mouse);
+
+        assertArrayEquals(new long[] { laptop, mouse.getId() }, sorted(model.search("lapt")));
+        assertArrayEquals(new long[] { coffee }, sorted(model.search("  FUEL  ")));
+        assertArrayEquals(new long[] { laptop, coffee }, sorted(model.search("dev")));
+        // Short words match the start of a word only
+        assertArrayEquals(new long[] { coffee, mouse.getId() }, sorted(model.search("f")));
+        assertArrayEquals(new long[0], model.search("ap"));
+        // Every word has to match
+        assertArrayEquals(new long[] { mouse.getId() }, model.search("lap bag"));
+        assertNull(model.search("   "));
+    }
+
+    @Test
+    public void trigramsThatAreNotAdjacentDoNotMatch() {
+        ItemModel model = new ItemModel(new ListItemStore());
+        Item item = new Item("abcxbcd", "", 1.0, 1);
+        model.addItem(item);
+        assertArrayEquals(new long[0], model.search("abcd"));
+        assertArrayEquals(new long[] { item.getId() }, model.search("xbcd"));
+    }
+
+    @Test
+    public void followsUpdatesDeletesAndBatches() {
+        ItemModel model = new ItemModel(new ColumnarItemStore());
+        model.search("warm-up");
+        long[] ids = new long[5000];
+        for (int i = 0; i < ids.length; i++) {
+            Item item = new Item("Widget " + i, "Old stock", 1.0, 1);
+            model.addItem(item);
+            ids[i] = item.getId();
+        }
+        // Enough updates to retire most document numbers and force a compaction
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < ids.length; i++) {
+                model.updateItem(ids[i], "Widget " + i, i % 2 == 0 ? "New stock" : "Old stock", 1.0, 1);
+            }
+        }
+        ItemModel.Batch batch = model.beginBatch();
+        for (int i = 0; i < ids.length; i += 4) {
+            batch.delete(ids[i]);
+        }
+        batch.commit();
+
+        assertEquals(1250, model.search("new stock").length);
+        assertEquals(2500, model.search("old").length);
+        assertArrayEquals(new long[] { ids[4998] }, model.search("widget 4998"));
+        assertArrayEquals(new long[0], model.search("widget 4996"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.lab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+public class StringDictionaryTest {
+
+    @Test
+    public void lastReleaseDropsTheEntryAndReusesItsCode() {
+        StringDictionary dictionary = new StringDictionary();
+        int desk = dictionary.acquire("Standing desk");
+        assertEquals(desk, dictionary.acquire(new String("Standing desk")));
+        int cable = dictionary.acquire("USB-C cable");
+        assertEquals(2, dictionary.size());
+        assertEquals(StringDictionary.NULL, dictionary.acquire(null));
+        assertNull(dictionary.get(StringDictionary.NULL));
+
+        dictionary.release(desk);
+        assertEquals("Standing desk", dictionary.get(desk));
+        dictionary.release(desk);
+        assertEquals(1, dictionary.size());
+        assertEquals(StringDictionary.NULL, dictionary.codeOf("Standing desk"));
+        assertEquals(cable, dictionary.codeOf("USB-C cable"));
+        assertEquals(desk, dictionary.acquire("Headset"));
+    }
+
+    @Test
+    public void survivesGrowthAndChurn() {
+        StringDictionary dictionary = new StringDictionary();
+        int[] codes = new int[50_000];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = dictionary.acquire("Desc " + i);
+        }
+        // Deleting every other entry shifts probe chains around the survivors
+        for (int i = 0; i < codes.length; i += 2) {
+            dictionary.release(codes[i]);
+        }
+        assertEquals(25_000, dictionary.size());
+        for (int i = 1; i < codes.length; i += 2) {
+            assertEquals(codes[i], dictionary.codeOf("Desc " + i));
+        }
+        for (int i = 0; i < codes.length; i += 2) {
+            assertEquals(StringDictionary.NULL, dictionary.codeOf("Desc " + i));
+        }
+    }
+
+    @Test
+    public void storesShareDescriptionsAndReclaimThem() {
+        for (String kind : new String[] { "list", "columnar" }) {
+            ItemStore store = ItemStore.create(kind);
+            ItemModel model = new ItemModel(store);
+            for (int i = 0; i < 1000; i++) {
+                model.addItem(new Item("SKU-" + i, new String(i % 2 == 0 ? "Standing desk" : "USB-C cable"), 10, 1));
+            }
+            assertSame(model.getDescription(0), model.getDescription(2), kind);
+            assertEquals(2, distinct(store), kind);
+
+            long first = model.getId(0);
+            model.updateItem(first, "SKU-0", "Monitor arm", 10, 1);
+            assertEquals(3, distinct(store), kind);
+            model.deleteItem(first);
+            assertEquals(2, distinct(store), kind);
+            for (int i = 1; i < 1000; i += 2) {
+                model.deleteItem(i + 1);
+            }
+            assertEquals(1, distinct(store), kind);
+            assertEquals("Standing desk", model.getDescription(0), kind);
+        }
+    }
+
+    private static int distinct(ItemStore store) {
+        return store instanceof ColumnarItemStore columnar
+                ? columnar.distinctDescriptions() : ((ListItemStore) store).distinctDescriptions();
+    }
+}
@@ -0,0 +1,63 @@
+package com.lab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// Run with -Psimd to compare the Vector API kernel; otherwise both sides are scalar
+public class TotalsKernelTest {
+    @Test
+    public void bestKernelMatchesScalarExactly() {
+        // Small amounts stay on the vector path; a few huge ones push it onto the checked one
+        for (int hugeEvery : new int[] { 0, 1000 }) {
+            Random random = new Random(3);
+            int length = 100_003;
+            long[] prices = new long[length];
+            int[] amounts = new int[length];
+            for (int i = 0; i < length; i++) {
+                prices[i] = random.nextInt(10_000_000);
+                amounts[i] = random.nextInt(hugeEvery > 0 && i % hugeEvery == 0 ? Integer.MAX_VALUE : 100);
+            }
+            ColumnTotals scalar = new ColumnTotals();
+            new ScalarTotalsKernel().accumulate(prices, amounts, length, scalar);
+            ColumnTotals best = new ColumnTotals();
+            TotalsKernel.BEST.accumulate(prices, amounts, length, best);
+
+            assertEquals(length, best.getCount());
+            assertEquals(scalar.getAmount(), best.getAmount(), TotalsKernel.BEST.name());
+            assertEquals(scalar.getValueCents(), best.getValueCents(), TotalsKernel.BEST.name());
+            assertEquals(scalar.getMinPriceCents(), best.getMinPriceCents());
+            assertEquals(scalar.getMaxPriceCents(), best.getMaxPriceCents());
+        }
+    }
+
+    @Test
+    public void overflowThrowsInsteadOfWrapping() {
+        long[] prices = new long[64];
+        int[] amounts = new int[64];
+        Arrays.fill(prices, Money.MAX_CENTS - 1);
+        Arrays.fill(amounts, 1 << 20);
+        assertThrows(ArithmeticException.class,
+                () -> new ScalarTotalsKernel().accumulate(prices, amounts, 64, new ColumnTotals()));
+        assertThrows(ArithmeticException.class,
+                () -> TotalsKernel.BEST.accumulate(prices, amounts, 64, new ColumnTotals()));
+    }
+
+    @Test
+    public void columnTotalsAgreeWithTheRunningTotals() {
+        ItemModel model = new ItemModel(new ColumnarItemStore());
+        model.addSampleItems();
+        model.addItem(new Item("Mouse", "Pointing device", 25.0, 0));
+        ColumnTotals totals = model.getColumnTotals();
+        assertEquals(3, totals.getCount());
+        assertEquals(model.getTotalAmount(), totals.getAmount());
+        assertEquals(model.getTotalCents(), totals.getValueCents());
+        assertEquals(1000, totals.getMinPriceCents());
+        assertEquals(100000, totals.getMaxPriceCents());
+        model.verifyTotals();
+    }
+}
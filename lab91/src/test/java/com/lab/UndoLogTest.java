@@ -0,0 +1,121 @@
+package com.lab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class UndoLogTest {
+
+    @Test
+    public void undoAndRedoAddUpdateAndDelete() {
+        ItemModel model = new ItemModel();
+        UndoLog log = new UndoLog(1 << 20);
+        long laptop = model.getId(0);
+
+        Item mouse = new Item("Mouse", "Pointing device", 25.0, 4);
+        model.addItem(mouse);
+        log.recordAdd(mouse);
+        Item before = model.getItem(laptop);
+        model.updateItem(laptop, "Laptop", "Developer machine", 900.0, 1);
+        log.recordUpdate(before, "Laptop", "Developer machine", 900.0, 1);
+        // A scanner changes another field meanwhile; undoing the price edit keeps it
+        model.updateItem(laptop, "Laptop", "Developer machine", 900.0, 7);
+        before = model.getItem(mouse.getId());
+        model.deleteItem(mouse.getId());
+        log.recordDelete(List.of(before));
+
+        assertTrue(log.undo(model));
+        assertEquals("Mouse", model.getItem(mouse.getId()).getName());
+        assertTrue(log.undo(model));
+        assertEquals(1000.0, model.getItem(laptop).getPrice());
+        assertEquals(7, model.getItem(laptop).getAmount());
+        assertTrue(log.undo(model));
+        assertNull(model.getItem(mouse.getId()));
+        assertFalse(log.undo(model));
+
+        assertTrue(log.redo(model));
+        assertTrue(log.redo(model));
+        assertEquals(25.0, model.getItem(mouse.getId()).getPrice());
+        assertEquals(900.0, model.getItem(laptop).getPrice());
+        model.verifyTotals();
+
+        // A new edit drops what could still be redone
+        log.recordAdd(model.getItemAt(0));
+        assertFalse(log.canRedo());
+    }
+
+    @Test
+    public void bulkUndoIsOneBatch() {
+        ItemModel model = new ItemModel(new ColumnarItemStore());
+        for (int i = 0; i < 1000; i++) {
+            model.addItem(new Item("Item " + i, "Bulk", i, i % 5));
+        }
+        long amount = model.getTotalAmount();
+        List<Item> before = new ArrayList<>();
+        ItemModel.Batch batch = model.beginBatch();
+        for (int slot = 0; slot < model.size(); slot += 2) {
+            before.add(model.getItemAt(slot));
+            batch.delete(model.getId(slot));
+        }
+        batch.commit();
+        UndoLog log = new UndoLog(1 << 20);
+        log.recordDelete(before);
+
+        List<ItemModelEvent> events = new ArrayList<>();
+        model.addListener(events::add);
+        log.undo(model);
+        assertEquals(1, events.size());
+        assertEquals(500, events.get(0).getInserted().length);
+        assertEquals(1000, model.size());
+        assertEquals(amount, model.getTotalAmount());
+        assertEquals("Item 0", model.getItem(before.get(0).getId()).getName());
+    }
+
+    @Test
+    public void refusedUndoKeepsTheEntry() {
+        ItemModel model = new ItemModel(new ListItemStore());
+        UndoLog log = new UndoLog(1 << 20);
+        double price = Money.toPrice(1L << 40);
+        Item large = new Item("Large", null, price, 1 << 22);
+        model.addItem(large);
+        model.deleteItem(large.getId());
+        log.recordDelete(List.of(large));
+        // Bringing the first one back would take the total past 2^63 cents
+        Item other = new Item("Other", null, price, 1 << 22);
+        model.addItem(other);
+
+        assertThrows(ArithmeticException.class, () -> log.undo(model));
+        assertEquals(1, log.size());
+        assertFalse(log.canRedo());
+        model.deleteItem(other.getId());
+        assertTrue(log.undo(model));
+        assertEquals("Large", model.getItem(large.getId()).getName());
+        assertTrue(log.canRedo());
+    }
+
+    @Test
+    public void oldestEntriesAreEvictedOverBudget() {
+        ItemModel model = new ItemModel();
+        UndoLog log = new UndoLog(10_000);
+        for (int i = 0; i < 1000; i++) {
+            Item item = new Item("Item " + i, "Added in a loop", i, 1);
+            model.addItem(item);
+            log.recordAdd(item);
+        }
+        assertTrue(log.getBytes() <= 10_000);
+        assertTrue(log.size() > 0 && log.size() < 1000);
+        int kept = log.size();
+        while (log.undo(model)) {
+            // Undoes the newest entries only
+        }
+        assertEquals(2 + 1000 - kept, model.size());
+        assertEquals("Item " + (999 - kept), model.getName(model.size() - 1));
+    }
+}